@@ -0,0 +1,80 @@
+package com.garrybest.pso;
+
+import com.garrybest.pso.model.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a steady-state iteration of the solvers. Run {@link #main(String[])} to assert,
+ * through the GC profiler, that an iteration does not allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IterationAllocationBenchmark {
+
+    /**
+     * Less than a single object per operation, what is left is the noise of the harness.
+     */
+    private static final double ALLOCATION_TOLERANCE = 1.0;
+
+    @Param({"40", "200"})
+    private int swarmSize;
+
+    private HybridPSO hybridPSO;
+    private BinaryPSO binaryPSO;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hybridPSO = new HybridPSO(new DifficultModel_1(), swarmSize);
+        hybridPSO.initializeSwarm();
+        binaryPSO = new BinaryPSO(new DifficultModel_1(), swarmSize);
+        binaryPSO.initializeSwarm();
+    }
+
+    @Benchmark
+    public double hybridIteration() {
+        hybridPSO.iterate();
+        return hybridPSO.getgBest();
+    }
+
+    @Benchmark
+    public double binaryIteration() {
+        binaryPSO.iterate();
+        return binaryPSO.getgBest();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(IterationAllocationBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        StringBuilder failures = new StringBuilder();
+        for (RunResult runResult : new Runner(options).run()) {
+            for (Map.Entry<String, Result> entry : runResult.getSecondaryResults().entrySet()) {
+                if (!entry.getKey().endsWith("gc.alloc.rate.norm"))
+                    continue;
+                double bytesPerOp = entry.getValue().getScore();
+                if (bytesPerOp >= ALLOCATION_TOLERANCE) {
+                    failures.append(runResult.getParams().getBenchmark())
+                            .append(' ').append(runResult.getParams().getParam("swarmSize"))
+                            .append(": ").append(bytesPerOp).append(" B/op\n");
+                }
+            }
+        }
+        if (failures.length() > 0)
+            throw new AssertionError("Steady-state iteration allocates:\n" + failures);
+    }
+}
@@ -0,0 +1,99 @@
+package com.garrybest.pso;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The move of a single particle, {@link PSOUtil#moveParticle} against the element by element
+ * update clamped with {@link PSOUtil#restrictByBoundary(double, double, double)}.
+ * <p>
+ * Every invocation starts from the next of {@link #STATES} random particles, otherwise the positions
+ * would settle at the bounds after a few invocations and the branches of the clamps would always be predicted.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KernelBenchmark implements PSOConstants {
+
+    private static final int STATES = 64;
+
+    @Param({"10", "100", "1000", "10000"})
+    private int dimension;
+
+    private double[][] xStates;
+    private double[][] vStates;
+    private int next;
+    private double[] x;
+    private double[] v;
+    private double[] pBestX;
+    private double[] gBestX;
+    private double[] minVel;
+    private double[] maxVel;
+    private double[] minLoc;
+    private double[] maxLoc;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RandomSource random = new RandomSource(42);
+        xStates = new double[STATES][dimension];
+        vStates = new double[STATES][dimension];
+        x = new double[dimension];
+        v = new double[dimension];
+        pBestX = new double[dimension];
+        gBestX = new double[dimension];
+        minVel = new double[dimension];
+        maxVel = new double[dimension];
+        minLoc = new double[dimension];
+        maxLoc = new double[dimension];
+        for (int j = 0; j < dimension; j++) {
+            minLoc[j] = -10;
+            maxLoc[j] = 10;
+            minVel[j] = -2;
+            maxVel[j] = 2;
+            pBestX[j] = 20 * random.nextDouble() - 10;
+            gBestX[j] = 20 * random.nextDouble() - 10;
+        }
+        for (int k = 0; k < STATES; k++) {
+            for (int j = 0; j < dimension; j++) {
+                xStates[k][j] = 20 * random.nextDouble() - 10;
+                vStates[k][j] = 4 * random.nextDouble() - 2;
+            }
+        }
+    }
+
+    /**
+     * Load the next random particle into {@code x} and {@code v}, both benchmarks pay the same copy.
+     */
+    private void reload() {
+        System.arraycopy(xStates[next], 0, x, 0, dimension);
+        System.arraycopy(vStates[next], 0, v, 0, dimension);
+        next = (next + 1) % STATES;
+    }
+
+    @Benchmark
+    public double[] branching() {
+        reload();
+        double c1 = 0.3 * C1;
+        double c2 = 0.7 * C2;
+        for (int j = 0; j < dimension; j++) {
+            double previousLoc = x[j];
+            double tempVel = (0.5 * v[j]) + c1 * (pBestX[j] - previousLoc) + c2 * (gBestX[j] - previousLoc);
+            double newVel = PSOUtil.restrictByBoundary(tempVel, maxVel[j], minVel[j]);
+            v[j] = newVel;
+            x[j] = PSOUtil.restrictByBoundary(previousLoc + newVel, maxLoc[j], minLoc[j]);
+        }
+        return x;
+    }
+
+    @Benchmark
+    public double[] moveParticle() {
+        reload();
+        PSOUtil.moveParticle(x, v, pBestX, gBestX, 0, 0, dimension, 0.5, 0.3 * C1, 0.7 * C2,
+                minVel, maxVel, minLoc, maxLoc);
+        return x;
+    }
+}
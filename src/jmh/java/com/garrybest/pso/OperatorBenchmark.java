@@ -0,0 +1,60 @@
+package com.garrybest.pso;
+
+import com.garrybest.pso.model.SphereModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The operators of a single iteration on a swarm that has already been initialized.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperatorBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int dimension;
+
+    @Param({"20", "200"})
+    private int swarmSize;
+
+    private HybridPSO hybridPSO;
+    private BinaryPSO binaryPSO;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hybridPSO = new HybridPSO(new SphereModel(dimension), swarmSize);
+        hybridPSO.initializeSwarm();
+        binaryPSO = new BinaryPSO(new SphereModel(dimension), swarmSize);
+        binaryPSO.initializeSwarm();
+    }
+
+    @Benchmark
+    public void hybridUpdateVelocityAndLocation() {
+        hybridPSO.updateVelocityAndLocation(0.5);
+    }
+
+    @Benchmark
+    public void hybridHybridize() {
+        hybridPSO.hybridize();
+    }
+
+    @Benchmark
+    public void hybridMutate() {
+        hybridPSO.mutate(0.2);
+    }
+
+    @Benchmark
+    public void binaryUpdateVelocityAndLocation() {
+        binaryPSO.updateVelocityAndLocation(0.5);
+    }
+
+    @Benchmark
+    public void binaryHybridize() {
+        binaryPSO.hybridize();
+    }
+}
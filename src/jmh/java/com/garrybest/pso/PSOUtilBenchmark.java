@@ -0,0 +1,77 @@
+package com.garrybest.pso;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The helpers of {@link PSOUtil}, the vector helpers run over a particle
+ * of {@code dimension} and the array helpers over the fitness of the swarm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PSOUtilBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int dimension;
+
+    @Param({"20", "200", "10000"})
+    private int swarmSize;
+
+    private double[] vector;
+    private double[] randoms;
+    private double[] fitness;
+    private RandomSource generator;
+    private int[] pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        vector = new double[dimension];
+        randoms = new double[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = random.nextGaussian();
+            randoms[i] = random.nextDouble();
+        }
+        fitness = new double[swarmSize];
+        for (int i = 0; i < swarmSize; i++) {
+            fitness[i] = random.nextDouble();
+        }
+        generator = new RandomSource(42);
+        pool = new int[swarmSize];
+        PSOUtil.resetPool(pool);
+    }
+
+    @Benchmark
+    public double getVecNorm() {
+        return PSOUtil.getVecNorm(vector);
+    }
+
+    @Benchmark
+    public int getMinPos() {
+        return PSOUtil.getMinPos(fitness);
+    }
+
+    /**
+     * Half of the swarm, like the hybridization pool.
+     */
+    @Benchmark
+    public int[] samplePool() {
+        PSOUtil.samplePool(generator, swarmSize, swarmSize / 2, pool);
+        return pool;
+    }
+
+    @Benchmark
+    public double sigmoid() {
+        double bits = 0;
+        for (int i = 0; i < dimension; i++) {
+            bits += PSOUtil.sigmoid(vector[i], randoms[i]);
+        }
+        return bits;
+    }
+}
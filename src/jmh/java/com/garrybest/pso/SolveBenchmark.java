@@ -0,0 +1,48 @@
+package com.garrybest.pso;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Full solves of the test models. The dimension is fixed by each model,
+ * so only the swarm size is varied.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+
+    @Param({"SimpleModel_1", "SimpleModel_2", "DifficultModel_1", "DifficultModel_2", "DifficultModel_3"})
+    private String model;
+
+    @Param({"20", "40"})
+    private int swarmSize;
+
+    private OptModel optModel;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        optModel = (OptModel) Class.forName("com.garrybest.pso.model." + model).newInstance();
+        Logger.getLogger(HybridPSO.class.getName()).setLevel(java.util.logging.Level.OFF);
+        Logger.getLogger(BinaryPSO.class.getName()).setLevel(java.util.logging.Level.OFF);
+    }
+
+    @Benchmark
+    public double hybridSolve() {
+        HybridPSO pso = new HybridPSO(optModel, swarmSize);
+        pso.execute();
+        return pso.getgBest();
+    }
+
+    @Benchmark
+    public double binarySolve() {
+        BinaryPSO pso = new BinaryPSO(optModel, swarmSize);
+        pso.execute();
+        return pso.getgBest();
+    }
+}
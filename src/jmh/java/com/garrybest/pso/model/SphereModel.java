@@ -0,0 +1,61 @@
+package com.garrybest.pso.model;
+
+import com.garrybest.pso.*;
+
+import java.util.Arrays;
+
+/**
+ * The sphere function with a configurable dimension, used to benchmark the solver itself.
+ * f(x) = sum(x_i^2), where -5.12 <= x_i <= 5.12
+ */
+public class SphereModel implements OptModel {
+
+    private final int dimension;
+
+    public SphereModel(int dimension) {
+        this.dimension = dimension;
+    }
+
+    @Override
+    public double evalObj(Location location) {
+        double[] x = location.getLoc();
+        double obj = 0;
+        for (double xi : x) {
+            obj += xi * xi;
+        }
+        return obj;
+    }
+
+    @Override
+    public double[] getMinLoc() {
+        double[] minLoc = new double[dimension];
+        Arrays.fill(minLoc, -5.12);
+        return minLoc;
+    }
+
+    @Override
+    public double[] getMaxLoc() {
+        double[] maxLoc = new double[dimension];
+        Arrays.fill(maxLoc, 5.12);
+        return maxLoc;
+    }
+
+    @Override
+    public double[] getMinVel() {
+        double[] minVel = new double[dimension];
+        Arrays.fill(minVel, -1);
+        return minVel;
+    }
+
+    @Override
+    public double[] getMaxVel() {
+        double[] maxVel = new double[dimension];
+        Arrays.fill(maxVel, 1);
+        return maxVel;
+    }
+
+    @Override
+    public int getDimentions() {
+        return dimension;
+    }
+}
@@ -1,30 +1,80 @@
 package com.garrybest.pso;
 
-import java.util.Random;
-import java.util.Vector;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Abstract super class of PSO.
  * If you want to customize your own PSO algorithm, please extends this class.
+ * <p>
+ * The settings that only some solvers implement, like the checkpoints, the constraint handler,
+ * the restart and the parameter controller, are protected here, the solvers that implement them make them public.
  *
  * @Author: Fang Rui
  * @Date: 2018/6/29
  * @Time: 9:36
  */
 public abstract class AbstractPSO {
-    protected Vector<Particle> swarm = new Vector<>();
+    protected SwarmStore swarm;
     protected final int swarmSize;
     protected double[] pBest;
-    protected Vector<Location> pBestLocation = new Vector<>();
+    protected double[] pBestViolation;
     protected double gBest;
+    protected double gBestViolation;
     protected Location gBestLocation;
-    protected Random generator = new Random();
+    protected RandomSource generator = new RandomSource();
+    protected final RandomSource[] particleGenerators;
+    protected final int[] pool;
     protected boolean isWarmStart = false;
     protected double[] initVariableState;
+    protected EvaluationExecutor evaluationExecutor = EvaluationExecutors.sequential();
+    protected ConstraintHandler constraintHandler = ConstraintHandlers.penalty();
+    protected ParameterController parameterController = ParameterControllers.linear();
+    protected double initialEpsilon;
+    protected double epsilon;
+    protected boolean isGBestfeasible = false;
+    protected double restartThreshold;
+    protected double restartFraction;
+    protected double searchDiagonal;
+    protected int restarts;
+    protected double iterationDiversity;
+    protected int diversityIteration = -1;
+    protected int iterNum;
+    protected int maxIter;
+    protected double tolFitness;
+    protected long evaluations;
+    protected long improvements;
+    protected long startTime;
+    protected List<StoppingCriterion> stoppingCriteria = new ArrayList<>();
+    protected TerminationReason terminationReason;
+    protected List<SolverListener> listeners = new ArrayList<>();
+    protected boolean monitored = false;
+    protected final SolverMetrics metrics = new SolverMetrics();
+    protected boolean traced = false;
+    protected double[] trace = new double[0];
+    protected int traceLength;
 
     protected AbstractPSO(int swarmSize) {
+        this(swarmSize, swarmSize);
+    }
+
+    /**
+     * @param swarmSize     the size of the swarm
+     * @param particleCount the number of particles whose pBest, random stream and pool slot the solver keeps,
+     *                      0 if the particles are kept by other solvers, like the islands of {@link IslandPSO}
+     */
+    protected AbstractPSO(int swarmSize, int particleCount) {
         this.swarmSize = swarmSize;
-        this.pBest = new double[swarmSize];
+        this.pBest = new double[particleCount];
+        this.pBestViolation = new double[particleCount];
+        this.particleGenerators = new RandomSource[particleCount];
+        this.pool = new int[particleCount];
+        for (int i = 0; i < particleCount; i++) {
+            particleGenerators[i] = generator.split();
+        }
     }
 
     protected AbstractPSO(int swarmSize, double[] initVariableState) {
@@ -37,6 +87,160 @@ public abstract class AbstractPSO {
 
     protected abstract void execute();
 
+    /**
+     * Run the solver on its model and take a snapshot of the result. The solver can solve again,
+     * the settings are kept and the buffers of the previous run are reused.
+     *
+     * @return the result of the run
+     */
+    public SolveResult solve() {
+        execute();
+        return new SolveResult(this);
+    }
+
+    /**
+     * Restore the default settings, so that the solver can run another model without the
+     * stopping criteria, listeners and strategies set for the previous one. The buffers are kept.
+     */
+    protected void resetSettings() {
+        isWarmStart = false;
+        initVariableState = null;
+        evaluationExecutor = EvaluationExecutors.sequential();
+        constraintHandler = ConstraintHandlers.penalty();
+        parameterController = ParameterControllers.linear();
+        restartThreshold = 0;
+        restartFraction = 0;
+        stoppingCriteria.clear();
+        listeners.clear();
+        monitored = false;
+        traced = false;
+        terminationReason = null;
+    }
+
+    /**
+     * Reset the state of a run, call it when the swarm is initialized.
+     *
+     * @param maxIter    maximum iteration times
+     * @param tolFitness the tolerant minimum fitness value
+     */
+    protected void startRun(int maxIter, double tolFitness) {
+        this.maxIter = maxIter;
+        this.tolFitness = tolFitness;
+        this.iterNum = 0;
+        this.evaluations = 0;
+        this.improvements = 0;
+        this.restarts = 0;
+        this.diversityIteration = -1;
+        this.isGBestfeasible = false;
+        this.terminationReason = null;
+        this.startTime = System.nanoTime();
+        this.traceLength = 0;
+        metrics.reset();
+        PSOUtil.resetPool(pool);
+        parameterController.reset();
+        for (StoppingCriterion criterion : stoppingCriteria) {
+            criterion.reset();
+        }
+    }
+
+    /**
+     * Check whether the run should stop, the first criterion that fires is kept as the
+     * termination reason. The maximum iteration times and the tolerant fitness are checked
+     * first, then the stopping criteria in the order they were added.
+     *
+     * @return whether the run is terminated
+     */
+    protected boolean isTerminated() {
+        if (terminationReason != null)
+            return true;
+        if (iterNum >= maxIter) {
+            terminationReason = TerminationReason.MAX_ITERATIONS;
+        } else if (gBestViolation <= 0 && gBest <= tolFitness) {
+            terminationReason = TerminationReason.TOLERANCE_FITNESS;
+        } else {
+            for (int i = 0; i < stoppingCriteria.size(); i++) { // no iterator on the hot path
+                StoppingCriterion criterion = stoppingCriteria.get(i);
+                if (criterion.shouldStop(this)) {
+                    terminationReason = criterion.getReason();
+                    break;
+                }
+            }
+        }
+        return terminationReason != null;
+    }
+
+    /**
+     * Reset the tolerance of the constraint violation for the evaluation of the initial swarm.
+     *
+     * @return the tolerance
+     */
+    protected double resetEpsilon() {
+        epsilon = constraintHandler.getEpsilon(Double.POSITIVE_INFINITY, 0, maxIter);
+        return epsilon;
+    }
+
+    /**
+     * Compute the initial tolerance from the evaluated initial swarm, the fitness of
+     * the particles beyond the tolerance is punished again.
+     *
+     * @param fitness   the fitness value of each particle
+     * @param violation the constraint violation of each particle
+     */
+    protected void calibrateEpsilon(double[] fitness, double[] violation) {
+        initialEpsilon = constraintHandler.getInitialEpsilon(violation);
+        updateEpsilon();
+        for (int i = 0; i < fitness.length; i++) {
+            if (violation[i] > epsilon)
+                fitness[i] = violation[i] + PSOConstants.PUNISHMENT;
+        }
+    }
+
+    /**
+     * Update the tolerance of the constraint violation for the current iteration.
+     */
+    protected void updateEpsilon() {
+        epsilon = constraintHandler.getEpsilon(initialEpsilon, iterNum, maxIter);
+    }
+
+    /**
+     * @return whether the first particle is strictly better than the second, see {@link ConstraintHandler}
+     */
+    protected boolean isBetter(double fitness1, double violation1, double fitness2, double violation2) {
+        return constraintHandler.isBetter(fitness1, violation1, fitness2, violation2, epsilon);
+    }
+
+    /**
+     * Find the best particle, the first one if there is a tie.
+     *
+     * @param fitness   the fitness value of each particle
+     * @param violation the constraint violation of each particle
+     * @return the index of the best particle
+     */
+    protected int getBestPos(double[] fitness, double[] violation) {
+        int pos = 0;
+        for (int i = 1; i < fitness.length; i++) {
+            if (isBetter(fitness[i], violation[i], fitness[pos], violation[pos]))
+                pos = i;
+        }
+        return pos;
+    }
+
+    /**
+     * Find the worst particle, the first one if there is a tie.
+     *
+     * @param fitness   the fitness value of each particle
+     * @param violation the constraint violation of each particle
+     * @return the index of the worst particle
+     */
+    protected int getWorstPos(double[] fitness, double[] violation) {
+        int pos = 0;
+        for (int i = 1; i < fitness.length; i++) {
+            if (isBetter(fitness[pos], violation[pos], fitness[i], violation[i]))
+                pos = i;
+        }
+        return pos;
+    }
+
     public double getgBest() {
         return gBest;
     }
@@ -45,4 +249,309 @@ public abstract class AbstractPSO {
         return gBestLocation;
     }
 
+    /**
+     * @return the constraint violation of gBest
+     */
+    public double getgBestViolation() {
+        return gBestViolation;
+    }
+
+    public boolean isGBestfeasible() {
+        return isGBestfeasible;
+    }
+
+    /**
+     * @return the number of iterations of the current run
+     */
+    public int getIterNum() {
+        return iterNum;
+    }
+
+    /**
+     * @return the maximum iteration times of the current run
+     */
+    public int getMaxIter() {
+        return maxIter;
+    }
+
+    /**
+     * @return the number of locations evaluated by the model in the current run
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * The progress of a solver without a single gBest, like the insertions into the archive of {@link MOPSO},
+     * it is checked by {@link StoppingCriteria#noImprovement(int)} besides gBest.
+     *
+     * @return the number of improvements counted by the solver in the current run, 0 if it only improves gBest
+     */
+    public long getImprovements() {
+        return improvements;
+    }
+
+    /**
+     * @return the wall-clock time since the swarm was initialized, in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return System.nanoTime() - startTime;
+    }
+
+    /**
+     * The diameter of the swarm, the largest distance between a particle and gBest.
+     *
+     * @return the diameter, or {@code NaN} if the solver does not store its swarm in a {@link SwarmStore}
+     */
+    public double getSwarmDiameter() {
+        return swarm == null ? Double.NaN : swarm.getDiameter();
+    }
+
+    /**
+     * The diversity of the swarm, the root mean square distance between a particle and the centroid of the swarm.
+     *
+     * @return the diversity, or {@code NaN} if the solver does not store its swarm in a {@link SwarmStore}
+     */
+    public double getSwarmDiversity() {
+        return swarm == null ? Double.NaN : swarm.getDiversity();
+    }
+
+    /**
+     * The diversity of the swarm between two iterations, it is measured at most once per iteration and shared
+     * by the restart check, the parameter controller and the metrics. Set {@link #diversityIteration} to -1
+     * if the swarm moves between two iterations.
+     *
+     * @return the diversity, see {@link #getSwarmDiversity()}
+     */
+    protected double getIterationDiversity() {
+        if (diversityIteration != iterNum) {
+            iterationDiversity = getSwarmDiversity();
+            diversityIteration = iterNum;
+        }
+        return iterationDiversity;
+    }
+
+    /**
+     * @return the number of times the swarm has collapsed and been partly restarted in the current run
+     */
+    public int getRestarts() {
+        return restarts;
+    }
+
+    /**
+     * Check the diversity of the swarm once per iteration, see {@link #setRestart(double, double)}.
+     *
+     * @return the number of particles to restart, or 0 if the swarm has not collapsed
+     */
+    protected int getRestartSize() {
+        if (restartFraction <= 0)
+            return 0;
+        double diversity = getSwarmDiversity();
+        if (!(diversity < restartThreshold * searchDiagonal)) { // the swarm stays as it is until the next iteration
+            iterationDiversity = diversity;
+            diversityIteration = iterNum + 1;
+            return 0;
+        }
+        diversityIteration = -1;
+        restarts++;
+        return Math.max(1, (int) (swarmSize * restartFraction));
+    }
+
+    /**
+     * @return the fraction of the particles that satisfy the constraints, or {@code NaN} if unknown
+     */
+    public double getFeasibleRatio() {
+        return Double.NaN;
+    }
+
+    /**
+     * Seed the solver. The swarm-level decisions draw from one stream and every particle
+     * draws from its own stream, all derived from the seed, so two solvers with the same
+     * seed produce the same run whatever the evaluation executor.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        generator.setSeed(seed);
+        for (RandomSource particleGenerator : particleGenerators) {
+            particleGenerator.setSeed(generator.nextLong());
+        }
+    }
+
+    /**
+     * Add a listener of the progress of the runs. Metrics are only collected while
+     * at least one listener is registered.
+     *
+     * @param listener the listener
+     */
+    public void addListener(SolverListener listener) {
+        listeners.add(listener);
+        monitored = true;
+    }
+
+    public void removeListener(SolverListener listener) {
+        listeners.remove(listener);
+        monitored = traced || !listeners.isEmpty();
+    }
+
+    /**
+     * Record gBest at the end of every iteration into the convergence trace of {@link SolveResult}.
+     * Unlike a listener, it does not turn on the collection of the metrics.
+     *
+     * @param traced whether to record the convergence trace
+     */
+    public void setTraceConvergence(boolean traced) {
+        this.traced = traced;
+        monitored = traced || !listeners.isEmpty();
+    }
+
+    /**
+     * @return a copy of gBest at the end of every iteration of the current run, empty if it is not traced
+     */
+    public double[] getConvergenceTrace() {
+        return Arrays.copyOf(trace, traceLength);
+    }
+
+    /**
+     * Start timing a phase of an iteration.
+     *
+     * @return the start time, or 0 if no listener is registered
+     */
+    protected long startPhase() {
+        return listeners.isEmpty() ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Record the time spent in a phase since {@code start}.
+     *
+     * @param phase the phase that has ended
+     * @param start the value of {@link #startPhase()} or of the previous call
+     * @return the start time of the next phase, or 0 if no listener is registered
+     */
+    protected long endPhase(SolverMetrics.Phase phase, long start) {
+        if (listeners.isEmpty())
+            return 0;
+        long now = System.nanoTime();
+        metrics.addPhaseNanos(phase, now - start);
+        return now;
+    }
+
+    /**
+     * Record the convergence trace, then fill the metrics of the iteration that has just ended and
+     * notify the listeners, call it after {@code iterNum} is increased and only if {@link #monitored}.
+     * The metrics are only filled if a listener is registered.
+     *
+     * @param iterationEvaluations the number of model evaluations in the iteration
+     */
+    protected void fireIterationEnd(long iterationEvaluations) {
+        if (traced) {
+            if (traceLength == trace.length) // the buffer is kept for the next run
+                trace = Arrays.copyOf(trace, Math.max(64, 2 * trace.length));
+            trace[traceLength++] = gBest;
+        }
+        if (listeners.isEmpty())
+            return;
+        metrics.endIteration(iterNum, gBest, iterationEvaluations, evaluations, getFeasibleRatio(), getIterationDiversity());
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onIterationEnd(this, metrics);
+        }
+        metrics.clearIteration();
+    }
+
+    /**
+     * Notify the listeners that gBest has improved, call it only if {@link #monitored}.
+     *
+     * @param previous the previous gBest
+     */
+    protected void fireImprovement(double previous) {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onImprovement(this, previous, gBest);
+        }
+    }
+
+    /**
+     * Notify the listeners that the run has stopped.
+     */
+    protected void fireTermination() {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onTermination(this, terminationReason);
+        }
+    }
+
+    /**
+     * Add a criterion to stop the run early, the criteria are combined so that the first
+     * one that fires stops the run. The maximum iteration times of the model is always checked.
+     *
+     * @param criterion the stopping criterion, see {@link StoppingCriteria}
+     */
+    public void addStoppingCriterion(StoppingCriterion criterion) {
+        stoppingCriteria.add(criterion);
+    }
+
+    /**
+     * @return why the last run stopped, or {@code null} if it has not stopped
+     */
+    public TerminationReason getTerminationReason() {
+        return terminationReason;
+    }
+
+    /**
+     * Write the state of the swarm to a checkpoint, so that the run can be resumed after a restart
+     * with the same result. Call it between iterations, e.g. from {@link SolverListener#onIterationEnd}.
+     *
+     * @param file the checkpoint file, see {@link SwarmCheckpoint}
+     * @throws IOException if the file cannot be written
+     */
+    protected void saveCheckpoint(Path file) throws IOException {
+        SwarmCheckpoint.write(this, file);
+    }
+
+    /**
+     * Specify how the particles are ranked when the model has constraints, the default is
+     * {@link ConstraintHandlers#penalty()}. Set it before the swarm is initialized.
+     *
+     * @param constraintHandler the constraint handler, see {@link ConstraintHandlers}
+     */
+    protected void setConstraintHandler(ConstraintHandler constraintHandler) {
+        this.constraintHandler = constraintHandler;
+    }
+
+    /**
+     * Restart part of the swarm when it collapses. After every iteration, if the diversity of the swarm
+     * falls below {@code threshold} times the diagonal of the search space, a random {@code fraction}
+     * of the particles get a new random location and velocity within the bounds of the model,
+     * and keep their pBest. Restart is disabled by default.
+     *
+     * @param threshold the diversity threshold relative to the diagonal of the search space, e.g. 0.001
+     * @param fraction  the fraction of the particles to restart, in (0, 1], 0 to disable restart
+     */
+    protected void setRestart(double threshold, double fraction) {
+        if (!(threshold >= 0) || !(fraction >= 0 && fraction <= 1))
+            throw new IllegalArgumentException("Invalid restart threshold " + threshold + " or fraction " + fraction);
+        this.restartThreshold = threshold;
+        this.restartFraction = fraction;
+    }
+
+    /**
+     * Specify how the inertia weight, the acceleration coefficients and the probabilities of the
+     * operators change during a run, the default is {@link ParameterControllers#linear()}.
+     * Set it before the swarm is initialized.
+     *
+     * @param parameterController the parameter controller, see {@link ParameterControllers}
+     */
+    protected void setParameterController(ParameterController parameterController) {
+        this.parameterController = parameterController;
+    }
+
+    /**
+     * Specify how the fitness of the swarm is evaluated, the default is sequential.
+     * The pBest and gBest are always updated in particle order, so a parallel executor
+     * does not change the result of a run.
+     *
+     * @param evaluationExecutor the executor to run the fitness evaluation
+     */
+    public void setEvaluationExecutor(EvaluationExecutor evaluationExecutor) {
+        this.evaluationExecutor = evaluationExecutor;
+    }
+
 }
@@ -0,0 +1,312 @@
+package com.garrybest.pso;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous steady-state PSO. Every particle is moved, mutated and evaluated on its own
+ * on a pool of worker threads, and then immediately scheduled again, so a slow evaluation only
+ * holds up its own particle. There is no barrier between iterations: gBest is published through
+ * an {@link AtomicReference} as soon as a particle improves it, and the other particles pick
+ * it up on their next move.
+ * <p>
+ * An iteration of this solver is {@code swarmSize} evaluations. Once per iteration, one worker
+ * updates the counters, notifies the listeners and checks the stopping criteria, the metrics
+ * of the swarm are only approximate since the other particles keep moving meanwhile.
+ * Iterations completed concurrently may be reported together in one notification.
+ * The particles are not crossed over, and the run is not reproducible from a seed, as the
+ * order of the evaluations depends on the scheduling. The epsilon schedule of
+ * {@link ConstraintHandlers#epsilon()} is not applied, it ranks like the feasibility rules.
+ * Without a boundary between iterations, the parameters follow the linear schedule of {@link PSOConstants}
+ * over the evaluations, and the swarm is not restarted. The evaluation executor is not used.
+ */
+public class AsyncPSO extends AbstractPSO implements PSOConstants {
+
+    private static Logger logger = Logger.getLogger(AsyncPSO.class.getName());
+
+    private final OptModel optModel;
+    private final int nThreads;
+    private final double[] fitness;
+    private final double[] violation;
+    private final EvalResult[] results;
+    private final boolean[] evaluated;
+    private final Runnable[] steps;
+    private final AtomicReference<Leader> leader = new AtomicReference<>();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private double[] minLoc;
+    private double[] maxLoc;
+    private double[] minVel;
+    private double[] maxVel;
+    private volatile boolean stopped;
+    private volatile boolean anyFeasible;
+    private ExecutorService service;
+    private CountDownLatch done;
+
+    /**
+     * Constructs an asynchronous solver with one worker per available processor,
+     * the default size of swarm is {@code 10 + 2 * sqrt(n)}.
+     *
+     * @param optModel the model of the problem you want to solve
+     */
+    public AsyncPSO(OptModel optModel) {
+        this(optModel, (int) (10 + 2 * Math.sqrt(optModel.getDimentions())), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param optModel  the model of the problem you want to solve
+     * @param swarmSize the size of the PSO swarm
+     * @param nThreads  the number of worker threads
+     */
+    public AsyncPSO(OptModel optModel, int swarmSize, int nThreads) {
+        super(swarmSize);
+        if (nThreads <= 0)
+            throw new IllegalArgumentException("The number of threads must be positive: " + nThreads);
+        this.optModel = optModel;
+        this.nThreads = nThreads;
+        this.swarm = new SwarmStore(swarmSize, optModel.getDimentions());
+        this.fitness = new double[swarmSize];
+        this.violation = new double[swarmSize];
+        this.results = new EvalResult[swarmSize];
+        this.evaluated = new boolean[swarmSize];
+        this.steps = new Runnable[swarmSize];
+        for (int i = 0; i < swarmSize; i++) {
+            results[i] = new EvalResult();
+            int particle = i;
+            steps[i] = () -> step(particle);
+        }
+    }
+
+    /**
+     * Randomize the swarm, the particles are evaluated by the workers once the run starts.
+     */
+    @Override
+    protected void initializeSwarm() {
+        int n = optModel.getDimentions();
+        minLoc = optModel.getMinLoc();
+        maxLoc = optModel.getMaxLoc();
+        minVel = optModel.getMinVel();
+        maxVel = optModel.getMaxVel();
+        startRun(optModel.getMaxIter(), optModel.getTolFitness());
+        leader.set(null);
+        completed.set(0);
+        failure.set(null);
+        stopped = false;
+        anyFeasible = false;
+        gBest = Double.POSITIVE_INFINITY;
+        gBestViolation = Double.POSITIVE_INFINITY;
+        gBestLocation = swarm.getgBestLocation();
+        double[] x = swarm.getPositions();
+        double[] v = swarm.getVelocities();
+
+        for (int i = 0; i < swarmSize; i++) {
+            int offset = swarm.offset(i);
+            RandomSource random = particleGenerators[i];
+            evaluated[i] = false;
+            for (int j = 0; j < n; j++) {
+                x[offset + j] = isWarmStart ? initVariableState[j] : minLoc[j] + random.nextDouble() * (maxLoc[j] - minLoc[j]);
+                v[offset + j] = minVel[j] + random.nextDouble() * (maxVel[j] - minVel[j]);
+            }
+        }
+    }
+
+    @Override
+    public void execute() {
+        initializeSwarm();
+        done = new CountDownLatch(swarmSize);
+        service = Executors.newFixedThreadPool(nThreads, r -> {
+            Thread thread = new Thread(r, "pso-async");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (Runnable step : steps) {
+                service.execute(step);
+            }
+            done.await();
+        } catch (InterruptedException e) {
+            stopped = true;
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The asynchronous solver was interrupted", e);
+        } finally {
+            service.shutdownNow();
+            service = null;
+        }
+
+        Throwable cause = failure.get();
+        if (cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+        if (cause instanceof Error)
+            throw (Error) cause;
+        synchronize();
+        fireTermination();
+
+        if (isGBestfeasible) {
+            logger.info("Solution found after " + evaluations + " evaluations, best fitness value: " + gBest);
+        } else {
+            logger.warning("Solution not found");
+        }
+    }
+
+    /**
+     * Advance a particle by one evaluation, then schedule it again unless the run has stopped.
+     */
+    private void step(int i) {
+        if (stopped) {
+            done.countDown();
+            return;
+        }
+        try {
+            if (evaluated[i])
+                move(i);
+            evaluate(i);
+            evaluated[i] = true;
+            long count = completed.incrementAndGet();
+            if (count % swarmSize == 0)
+                endIteration();
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+            stopped = true;
+            done.countDown();
+            return;
+        }
+        if (stopped)
+            done.countDown();
+        else
+            service.execute(steps[i]);
+    }
+
+    /**
+     * Move a particle towards its pBest and the latest published gBest,
+     * then apply gaussian mutation with a probability decreasing over the run.
+     */
+    private void move(int i) {
+        int n = swarm.getDimension();
+        int offset = swarm.offset(i);
+        double[] x = swarm.getPositions();
+        RandomSource random = particleGenerators[i];
+        double progress = Math.min(1, (double) completed.get() / ((long) maxIter * swarmSize));
+        double w = W_UPPERBOUND - progress * (W_UPPERBOUND - W_LOWERBOUND);
+
+        PSOUtil.moveParticle(x, swarm.getVelocities(), swarm.getpBestPositions(), leader.get().position, 0, offset, n,
+                w, random.nextDouble() * C1, random.nextDouble() * C2, minVel, maxVel, minLoc, maxLoc);
+
+        double mutationProbability = MUTATION_UPPERBOUND - progress * (MUTATION_UPPERBOUND - MUTATION_LOWERBOUND);
+        if (random.nextDouble() < mutationProbability) {
+            for (int j = 0; j < n; j++) {
+                double sigma = (maxLoc[j] - minLoc[j]) * 0.1;
+                x[offset + j] = PSOUtil.restrictByBoundary(x[offset + j] + random.nextGaussian() * sigma, maxLoc[j], minLoc[j]);
+            }
+        }
+    }
+
+    /**
+     * Evaluate a particle, update its pBest and publish it if it beats gBest.
+     */
+    private void evaluate(int i) {
+        Location location = swarm.location(i);
+        EvalResult result = results[i];
+        location.setConstrViolation(null);
+        optModel.evalObjAndConstr(location, result);
+        double[] constrViolation = location.getConstrViolation();
+        if (constrViolation != null)
+            result.setViolation(PSOUtil.getViolation(constrViolation));
+        violation[i] = result.getViolation();
+        fitness[i] = violation[i] > 0 ? violation[i] + PUNISHMENT : result.getObjective();
+        if (violation[i] <= 0)
+            anyFeasible = true;
+
+        if (evaluated[i] && !isBetter(fitness[i], violation[i], pBest[i], pBestViolation[i]))
+            return;
+        pBest[i] = fitness[i];
+        pBestViolation[i] = violation[i];
+        swarm.savePBest(i);
+
+        Leader current = leader.get();
+        if (current != null && !isBetter(fitness[i], violation[i], current.fitness, current.violation))
+            return;
+        int n = swarm.getDimension();
+        double[] position = new double[n];
+        System.arraycopy(swarm.getpBestPositions(), swarm.offset(i), position, 0, n);
+        Leader candidate = new Leader(position, fitness[i], violation[i]);
+        while (!leader.compareAndSet(current, candidate)) {
+            current = leader.get();
+            if (!isBetter(candidate.fitness, candidate.violation, current.fitness, current.violation))
+                return;
+        }
+    }
+
+    /**
+     * Called by the worker that completes an iteration, see the class comment.
+     */
+    private synchronized void endIteration() {
+        if (stopped)
+            return;
+        int previousIter = iterNum;
+        long previousEvaluations = evaluations;
+        double previous = gBest;
+        synchronize();
+        if (iterNum == previousIter) // already covered by a later iteration
+            return;
+        if (monitored) {
+            if (gBest < previous)
+                fireImprovement(previous);
+            fireIterationEnd(evaluations - previousEvaluations);
+        }
+        if (isTerminated())
+            stopped = true;
+    }
+
+    /**
+     * Copy the published gBest and the counters into the fields of the solver.
+     */
+    private synchronized void synchronize() {
+        evaluations = completed.get();
+        iterNum = (int) (evaluations / swarmSize);
+        isGBestfeasible = anyFeasible;
+        Leader current = leader.get();
+        if (current != null) {
+            gBest = current.fitness;
+            gBestViolation = current.violation;
+            System.arraycopy(current.position, 0, swarm.getgBestPosition(), 0, current.position.length);
+        }
+    }
+
+    /**
+     * @return the fraction of the particles that satisfied the constraints at their last evaluation,
+     * it is approximate while the run is in progress
+     */
+    @Override
+    public double getFeasibleRatio() {
+        int count = 0;
+        for (double v : violation) {
+            if (v <= 0)
+                count++;
+        }
+        return (double) count / swarmSize;
+    }
+
+    /**
+     * An immutable snapshot of gBest.
+     */
+    private static final class Leader {
+        private final double[] position;
+        private final double fitness;
+        private final double violation;
+
+        Leader(double[] position, double fitness, double violation) {
+            this.position = position;
+            this.fitness = fitness;
+            this.violation = violation;
+        }
+    }
+
+    @Override
+    public void setConstraintHandler(ConstraintHandler constraintHandler) {
+        super.setConstraintHandler(constraintHandler);
+    }
+}
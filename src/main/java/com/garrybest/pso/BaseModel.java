@@ -0,0 +1,75 @@
+package com.garrybest.pso;
+
+/**
+ * This interface defines what every model gives to a solver: the boundaries, the dimension,
+ * the maximum iteration times and the constraints. The objectives are defined by
+ * {@link OptModel} and {@link MultiObjectiveModel}.
+ */
+public interface BaseModel {
+
+    /**
+     * Calculate the constraint function value based on the current location,
+     * where the equality constraint is treated as an inequality constraint.
+     * If your model has no constraint, there is no need to implement this method.
+     * The model may also report the value of each constraint through {@link Location#setConstrViolation(double[])},
+     * then the total violation is the sum of the positive values instead of the returned value.
+     *
+     * @param location the location of a particle
+     * @return the constraint function value
+     */
+    default double evalConstr(Location location) {
+        return 0;
+    }
+
+    /**
+     * Specify the lower boundary of the location, please give
+     * the minimum of the location by returning an array.
+     *
+     * @return the lower boundary of the location
+     */
+    default double[] getMinLoc() {
+        return new double[0];
+    }
+
+    /**
+     * Specify the upper boundary of the location, please give
+     * the maximum of the location by returning an array.
+     *
+     * @return the upper boundary of the location
+     */
+    default double[] getMaxLoc() {
+        return new double[0];
+    }
+
+    /**
+     * Specify the lower boundary of the velocity, please give
+     * the minimum of the velocity by returning an array.
+     *
+     * @return the lower boundary of the velocity
+     */
+    default double[] getMinVel() {
+        return new double[0];
+    }
+
+    /**
+     * Specify the upper boundary of the velocity, please give
+     * the maximum of the velocity by returning an array.
+     *
+     * @return the upper boundary of the velocity
+     */
+    default double[] getMaxVel() {
+        return new double[0];
+    }
+
+    /**
+     * @return the dimension of the state variable
+     */
+    int getDimentions();
+
+    /**
+     * @return maximum iteration times，the default value if {@code 1000}
+     */
+    default int getMaxIter() {
+        return 1000;
+    }
+}
@@ -0,0 +1,38 @@
+package com.garrybest.pso;
+
+/**
+ * An optional extension of {@link OptModel} that evaluates the whole swarm in one pass.
+ * Implement it when your model is much faster vectorized over all the particles, the solvers
+ * then call the batch methods instead of {@link #evalObj(Location)} and {@link #evalConstr(Location)}.
+ * <p>
+ * The positions are passed in the flat layout of {@link SwarmStore}: the {@code j}-th dimension of
+ * the {@code i}-th particle is {@code positions[i * dim + j]}. The array is owned by the solver,
+ * please do not modify it.
+ */
+public interface BatchOptModel extends OptModel {
+
+    /**
+     * Evaluate the objective function value of every particle.
+     *
+     * @param positions the flat positions of the swarm
+     * @param swarmSize the number of particles
+     * @param dim       the dimension of the state variable
+     * @param out       output, the objective function value of each particle
+     */
+    void evalObjBatch(double[] positions, int swarmSize, int dim, double[] out);
+
+    /**
+     * Calculate the constraint function value of every particle, see {@link #evalConstr(Location)}.
+     * If your model has no constraint, there is no need to implement this method.
+     *
+     * @param positions the flat positions of the swarm
+     * @param swarmSize the number of particles
+     * @param dim       the dimension of the state variable
+     * @param out       output, the constraint function value of each particle
+     */
+    default void evalConstrBatch(double[] positions, int swarmSize, int dim, double[] out) {
+        for (int i = 0; i < swarmSize; i++) {
+            out[i] = 0;
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.garrybest.pso;
 
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
+import com.garrybest.pso.SolverMetrics.Phase;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -18,7 +21,11 @@ public class BinaryPSO extends AbstractPSO implements PSOConstants {
 
     private OptModel optModel;
     private double[] fitness;
-    private boolean isGBestfeasible = false;
+    private boolean[] feasible;
+    private double[] violation;
+    private SwarmEvaluator evaluator;
+    private Topology topology = Topologies.global();
+    private EvalCache evalCache;
 
     public BinaryPSO(OptModel optModel) {
         this(optModel, (int) (10 + 2 * Math.sqrt(optModel.getDimentions())));
@@ -27,7 +34,7 @@ public class BinaryPSO extends AbstractPSO implements PSOConstants {
     public BinaryPSO(OptModel optModel, int swarmSize) {
         super(swarmSize);
         this.optModel = optModel;
-        this.fitness = new double[swarmSize];
+        allocate();
     }
 
     public BinaryPSO(OptModel optModel, double[] initVariableState) {
@@ -37,164 +44,318 @@ public class BinaryPSO extends AbstractPSO implements PSOConstants {
     public BinaryPSO(OptModel optModel, int swarmSize, double[] initVariableState) {
         super(swarmSize, initVariableState);
         this.optModel = optModel;
+        allocate();
+    }
+
+    private void allocate() {
         this.fitness = new double[swarmSize];
+        this.feasible = new boolean[swarmSize];
+        this.violation = new double[swarmSize];
+        this.swarm = new SwarmStore(swarmSize, optModel.getDimentions());
+        this.evaluator = new SwarmEvaluator(optModel, swarm, fitness, feasible, violation);
+        this.searchDiagonal = Math.sqrt(optModel.getDimentions());
     }
 
     @Override
     protected void initializeSwarm() {
-        Particle p;
         int n = optModel.getDimentions();
+        startRun(optModel.getMaxIter(), optModel.getTolFitness());
+        double[] x = swarm.getPositions();
+        Arrays.fill(swarm.getVelocities(), 0);
 
         for (int i = 0; i < swarmSize; i++) {
-            p = new Particle();
-
-            double[] loc = new double[n];
-            double[] vel = new double[n];
+            int offset = swarm.offset(i);
+            RandomSource random = particleGenerators[i];
 
             if (isWarmStart) {
                 for (int j = 0; j < n; j++) {
-                    loc[j] = initVariableState[j];
+                    x[offset + j] = initVariableState[j];
                 }
             } else {
                 for (int j = 0; j < n; j++) {
-                    loc[j] = PSOUtil.randomBool(generator.nextDouble());
+                    x[offset + j] = PSOUtil.randomBool(random.nextDouble());
                 }
             }
-            Location location = new Location(loc);
-            Velocity velocity = new Velocity(vel);
-
-            p.setLocation(location);
-            p.setVelocity(velocity);
-            swarm.add(p);
+        }
 
-            double violation = optModel.evalConstr(location);
-            if (violation > 0) {
-                fitness[i] = violation + PUNISHMENT;
-            } else {
-                fitness[i] = optModel.evalObj(location);
+        evaluator.setEpsilon(resetEpsilon());
+        evaluator.forgetPrevious();
+        evaluations += evaluator.evaluate(evaluationExecutor);
+        calibrateEpsilon(fitness, violation);
+        evaluator.setEpsilon(epsilon);
+        for (int i = 0; i < swarmSize; i++) {
+            if (feasible[i])
                 isGBestfeasible = true;
-            }
-
             pBest[i] = fitness[i];
-            pBestLocation.add(location);
+            pBestViolation[i] = violation[i];
+            swarm.savePBest(i);
         }
 
-        int bestParticleIndex = PSOUtil.getMinPos(fitness);
+        int bestParticleIndex = getBestPos(fitness, violation);
         gBest = fitness[bestParticleIndex];
-        gBestLocation = swarm.get(bestParticleIndex).getLocation();
+        gBestViolation = violation[bestParticleIndex];
+        swarm.saveGBest(bestParticleIndex);
+        gBestLocation = swarm.getgBestLocation();
+        topology.initialize(this);
     }
 
     @Override
     public void execute() {
         initializeSwarm();
+        run(maxIter);
+        fireTermination();
 
-        int iterNum = 0;
-        int n = optModel.getDimentions();
-        int maxIter = optModel.getMaxIter();
-
+        if (isGBestfeasible) {
+            logger.info("Solution found at iteration " + iterNum + ", best fitness value: " + gBest);
+        } else {
+            logger.warning("Solution not found");
+        }
+    }
 
-        double tol = 1e6;
-        double w;
+    /**
+     * Restore the swarm from a checkpoint written by {@link #saveCheckpoint(Path)} and
+     * run the remaining iterations.
+     *
+     * @param checkpoint the checkpoint file
+     * @throws IOException if the checkpoint cannot be read
+     */
+    public void resume(Path checkpoint) throws IOException {
+        SwarmCheckpoint.read(this, checkpoint);
+        topology.initialize(this);
+        run(maxIter - iterNum);
+        fireTermination();
 
-        while (iterNum < maxIter && tol > 0) {
-            w = W_UPPERBOUND - (((double) iterNum) / maxIter) * (W_UPPERBOUND - W_LOWERBOUND);
+        if (isGBestfeasible) {
+            logger.info("Solution found at iteration " + iterNum + ", best fitness value: " + gBest);
+        } else {
+            logger.warning("Solution not found");
+        }
+    }
 
-            for (int i = 0; i < swarmSize; i++) {
-                double r1 = generator.nextDouble();
-                double r2 = generator.nextDouble();
+    /**
+     * Run at most {@code iterations} more iterations on the initialized swarm,
+     * it stops early once the solver is terminated.
+     *
+     * @param iterations the maximum number of iterations to run
+     * @return whether the solver is terminated
+     */
+    protected boolean run(int iterations) {
+        for (int k = 0; k < iterations && !isTerminated(); k++) {
+            long evaluationsBefore = evaluations;
+            iterate();
+
+            if (logger.isLoggable(Level.FINE))
+                logger.fine("ITERATION " + iterNum + ": Value: " + gBest + "  " + isGBestfeasible);
+            iterNum++;
+            if (monitored)
+                fireIterationEnd(evaluations - evaluationsBefore);
+        }
+        return isTerminated();
+    }
 
-                Particle p = swarm.get(i);
+    /**
+     * Run a single iteration on the initialized swarm.
+     * With the sequential evaluation executor, an iteration allocates nothing.
+     */
+    protected void iterate() {
+        parameterController.update(this);
+        updateEpsilon();
+        evaluator.setEpsilon(epsilon);
+        long mark = startPhase();
+        updateVelocityAndLocation(parameterController.getInertia());
+        mark = endPhase(Phase.VELOCITY_UPDATE, mark);
+        hybridize();
+        mark = endPhase(Phase.HYBRIDIZATION, mark);
+        evaluations += evaluator.evaluate(evaluationExecutor);
+        mark = endPhase(Phase.EVALUATION, mark);
+        updateBest();
+        mark = endPhase(Phase.BEST_UPDATE, mark);
+        int restartSize = getRestartSize();
+        if (restartSize > 0)
+            restart(restartSize);
+        endPhase(Phase.RESTART, mark);
+    }
 
-                double[] loc = new double[n];
-                double[] vel = new double[n];
-                for (int j = 0; j < n; j++) {
-                    vel[j] = (w * p.getVelocity().getVel()[j]) +
-                            (r1 * C1) * (pBestLocation.get(i).getLoc()[j] - p.getLocation().getLoc()[j]) +
-                            (r2 * C2) * (gBestLocation.getLoc()[j] - p.getLocation().getLoc()[j]);
-                    loc[j] = PSOUtil.sigmoid(vel[j], generator.nextDouble());
-                }
-                p.setLocation(new Location(loc));
-                p.setVelocity(new Velocity(vel));
+    /**
+     * Move every particle towards its pBest and the gBest, or the lbest of its {@link Topology},
+     * the bits are sampled from the sigmoid of the velocity.
+     *
+     * @param w the inertia weight
+     */
+    protected void updateVelocityAndLocation(double w) {
+        double c1 = parameterController.getCognitive();
+        double c2 = parameterController.getSocial();
+        int n = swarm.getDimension();
+        double[] x = swarm.getPositions();
+        double[] v = swarm.getVelocities();
+        double[] pBestX = swarm.getpBestPositions();
+        boolean global = topology.isGlobal();
+        double[] socialX = global ? swarm.getgBestPosition() : pBestX;
 
+        for (int i = 0; i < swarmSize; i++) {
+            RandomSource random = particleGenerators[i];
+            double r1 = random.nextDouble() * c1;
+            double r2 = random.nextDouble() * c2;
+            int offset = swarm.offset(i);
+            int socialOffset = global ? 0 : swarm.offset(topology.getNeighborBest(i));
+
+            for (int j = 0; j < n; j++) {
+                double previousLoc = x[offset + j];
+                double vel = (w * v[offset + j]) +
+                        r1 * (pBestX[offset + j] - previousLoc) +
+                        r2 * (socialX[socialOffset + j] - previousLoc);
+                v[offset + j] = vel;
+                x[offset + j] = PSOUtil.sigmoid(vel, random.nextDouble());
             }
+        }
+    }
 
-            Set<Particle> pool = new HashSet<>();
-            int hybridPoolSize = (int) (swarmSize * HYBRID_PROBABILITY);
-            if ((hybridPoolSize & 1) == 1)
-                hybridPoolSize++;
-            while (pool.size() < hybridPoolSize) {
-                Particle p = swarm.get((int) (Math.random() * swarmSize));
-                pool.add(p);
+    /**
+     * Cross over random pairs of particles.
+     */
+    protected void hybridize() {
+        int n = swarm.getDimension();
+        double[] x = swarm.getPositions();
+        double[] v = swarm.getVelocities();
+
+        int hybridPoolSize = (int) (swarmSize * parameterController.getHybridProbability());
+        if ((hybridPoolSize & 1) == 1)
+            hybridPoolSize++;
+        hybridPoolSize = Math.min(hybridPoolSize, swarmSize & ~1);
+        PSOUtil.samplePool(generator, swarmSize, hybridPoolSize, pool);
+        for (int k = 0; k < hybridPoolSize; k += 2) {
+            int offset1 = swarm.offset(pool[k]);
+            int offset2 = swarm.offset(pool[k + 1]);
+
+            double velNorm1 = PSOUtil.getVecNorm(v, offset1, n); // |v1|
+            double velNorm2 = PSOUtil.getVecNorm(v, offset2, n); // |v2|
+            double tempNorm = 0;
+            for (int i = 0; i < n; i++) {
+                double tempVel = v[offset1 + i] + v[offset2 + i];
+                tempNorm += tempVel * tempVel;
             }
-            Iterator iter = pool.iterator();
-            while (iter.hasNext()) {
-                Particle p1 = (Particle) iter.next();
-                Particle p2 = (Particle) iter.next();
-
-                double velNorm1 = PSOUtil.getVecNorm(p1.getVelocity().getVel()); // |v1|
-                double velNorm2 = PSOUtil.getVecNorm(p2.getVelocity().getVel()); // |v2|
-                double[] tempVel = new double[n];
-                for (int i = 0; i < p1.getVelocity().getVel().length; i++) {
-                    tempVel[i] = p1.getVelocity().getVel()[i] + p2.getVelocity().getVel()[i];
-                }
-                double tempNorm = PSOUtil.getVecNorm(tempVel); // |v1 + v2|
-
-                double coefficient1 = velNorm1 / tempNorm; // |v1| / |v1 + v2|
-                double coefficient2 = velNorm2 / tempNorm; // |v2| / |v1 + v2|
-
-                double[] loc1 = new double[n];
-                double[] loc2 = new double[n];
-                double[] vel1 = new double[n];
-                double[] vel2 = new double[n];
-                for (int i = 0; i < n; i++) {
-                    vel1[i] = tempVel[i] * coefficient1;
-                    vel2[i] = tempVel[i] * coefficient2;
-                    loc1[i] = PSOUtil.sigmoid(vel1[i], generator.nextDouble());
-                    loc2[i] = PSOUtil.sigmoid(vel2[i], generator.nextDouble());
-                }
-                p1.setLocation(new Location(loc1));
-                p1.setVelocity(new Velocity(vel1));
-                p2.setLocation(new Location(loc2));
-                p2.setVelocity(new Velocity(vel2));
+            tempNorm = Math.sqrt(tempNorm); // |v1 + v2|
+            if (tempNorm == 0) // v1 + v2 = 0, so are the new velocities
+                tempNorm = Double.POSITIVE_INFINITY;
+
+            double coefficient1 = velNorm1 / tempNorm; // |v1| / |v1 + v2|
+            double coefficient2 = velNorm2 / tempNorm; // |v2| / |v1 + v2|
+
+            for (int i = 0; i < n; i++) {
+                double tempVel = v[offset1 + i] + v[offset2 + i];
+                v[offset1 + i] = tempVel * coefficient1;
+                v[offset2 + i] = tempVel * coefficient2;
+                x[offset1 + i] = PSOUtil.sigmoid(v[offset1 + i], generator.nextDouble());
+                x[offset2 + i] = PSOUtil.sigmoid(v[offset2 + i], generator.nextDouble());
             }
+        }
+    }
 
-            for (int i = 0; i < swarmSize; i++) {
-                Location location = swarm.get(i).getLocation();
-
-                double violation = optModel.evalConstr(location);
-                if (violation > 0) {
-                    fitness[i] = violation + PUNISHMENT;
-                } else {
-                    fitness[i] = optModel.evalObj(location);
-                    isGBestfeasible = true;
-                }
-
-                if (fitness[i] < pBest[i]) {
-                    pBest[i] = fitness[i];
-                    pBestLocation.set(i, location);
-                }
+    /**
+     * Give random particles new random bits and a zero velocity, they keep their pBest.
+     *
+     * @param restartSize the number of particles to restart
+     */
+    protected void restart(int restartSize) {
+        int n = swarm.getDimension();
+        double[] x = swarm.getPositions();
+        double[] v = swarm.getVelocities();
+
+        PSOUtil.samplePool(generator, swarmSize, restartSize, pool);
+        for (int k = 0; k < restartSize; k++) {
+            int offset = swarm.offset(pool[k]);
+            RandomSource random = particleGenerators[pool[k]];
+            for (int j = 0; j < n; j++) {
+                x[offset + j] = PSOUtil.randomBool(random.nextDouble());
+                v[offset + j] = 0;
             }
+        }
+    }
 
-            int bestParticleIndex = PSOUtil.getMinPos(fitness);
-            if (fitness[bestParticleIndex] < gBest) {
-                gBest = fitness[bestParticleIndex];
-                gBestLocation = swarm.get(bestParticleIndex).getLocation();
-            }
+    /**
+     * Update pBest and gBest from the evaluated fitness.
+     */
+    protected void updateBest() {
+        int successes = 0;
+        for (int i = 0; i < swarmSize; i++) {
+            if (feasible[i])
+                isGBestfeasible = true;
 
-            if (isGBestfeasible)
-                tol = gBest - optModel.getTolFitness();
-            logger.fine("ITERATION " + iterNum + ": Value: " + gBest + "  " + isGBestfeasible);
-            iterNum++;
+            if (isBetter(fitness[i], violation[i], pBest[i], pBestViolation[i])) {
+                pBest[i] = fitness[i];
+                pBestViolation[i] = violation[i];
+                swarm.savePBest(i);
+                topology.onPBestImproved(i);
+                successes++;
+            }
         }
 
-        if (isGBestfeasible) {
-            logger.info("Solution found at iteration " + iterNum + ", best fitness value: " + gBest);
-        } else {
-            logger.warning("Solution not found");
+        int bestParticleIndex = getBestPos(fitness, violation);
+        boolean improved = isBetter(fitness[bestParticleIndex], violation[bestParticleIndex], gBest, gBestViolation);
+        if (improved) {
+            double previous = gBest;
+            gBest = fitness[bestParticleIndex];
+            gBestViolation = violation[bestParticleIndex];
+            swarm.saveGBest(bestParticleIndex);
+            if (monitored)
+                fireImprovement(previous);
         }
+        topology.onIterationEnd(improved);
+        parameterController.onIterationEnd(this, successes);
+    }
+
+    @Override
+    public double getFeasibleRatio() {
+        return PSOUtil.getFeasibleRatio(feasible);
     }
 
-    public boolean isGBestfeasible() {
-        return isGBestfeasible;
+    /**
+     * Specify which pBest attracts each particle, the default is {@link Topologies#global()}.
+     * Set it before the swarm is initialized. A random topology draws new neighborhoods
+     * when a run is resumed from a checkpoint.
+     *
+     * @param topology the topology of the swarm, see {@link Topologies}
+     */
+    public void setTopology(Topology topology) {
+        this.topology = topology;
+    }
+
+    public Topology getTopology() {
+        return topology;
+    }
+
+    /**
+     * Memoize the evaluation of the bit patterns that have already been scored, so a repeated
+     * location skips the model entirely. The cache is disabled by default.
+     *
+     * @param evalCache the cache created with the dimension of the model, {@code null} to disable it
+     */
+    public void setEvalCache(EvalCache evalCache) {
+        this.evalCache = evalCache;
+        evaluator.setCache(evalCache);
+    }
+
+    public EvalCache getEvalCache() {
+        return evalCache;
+    }
+
+    @Override
+    public void saveCheckpoint(Path file) throws IOException {
+        super.saveCheckpoint(file);
+    }
+
+    @Override
+    public void setConstraintHandler(ConstraintHandler constraintHandler) {
+        super.setConstraintHandler(constraintHandler);
+    }
+
+    @Override
+    public void setRestart(double threshold, double fraction) {
+        super.setRestart(threshold, fraction);
+    }
+
+    @Override
+    public void setParameterController(ParameterController parameterController) {
+        super.setParameterController(parameterController);
     }
 }
@@ -0,0 +1,63 @@
+package com.garrybest.pso;
+
+/**
+ * Read-only view of a binary location packed into {@code long} words,
+ * the {@code j}-th dimension is bit {@code j % 64} of word {@code j / 64}.
+ */
+public class BitLocation {
+    private final long[] words;
+    private final int offset;
+    private final int dimension;
+
+    public BitLocation(long[] words, int offset, int dimension) {
+        this.words = words;
+        this.offset = offset;
+        this.dimension = dimension;
+    }
+
+    /**
+     * @param j the index of a dimension
+     * @return whether the dimension is 1
+     */
+    public boolean get(int j) {
+        return (words[offset + (j >>> 6)] & (1L << j)) != 0;
+    }
+
+    /**
+     * @param j the index of a dimension
+     * @return the value of the dimension, 0 or 1
+     */
+    public int getBit(int j) {
+        return (int) (words[offset + (j >>> 6)] >>> j) & 1;
+    }
+
+    /**
+     * @return the number of dimensions that are 1
+     */
+    public int cardinality() {
+        int count = 0;
+        for (int w = 0; w < getWordCount(); w++) {
+            count += Long.bitCount(words[offset + w]);
+        }
+        return count;
+    }
+
+    /**
+     * The backing words, for word-level access from {@link #getOffset()}. Please do not modify them.
+     */
+    public long[] getWords() {
+        return words;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getWordCount() {
+        return EvalCache.wordCount(dimension);
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+}
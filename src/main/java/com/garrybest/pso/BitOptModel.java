@@ -0,0 +1,46 @@
+package com.garrybest.pso;
+
+/**
+ * This interface defines a binary optimization model for {@link PackedBinaryPSO}.
+ * The location is given as packed bits instead of a {@code double} per dimension.
+ */
+public interface BitOptModel {
+
+    /**
+     * Evaluate the objective function value based on the current location
+     *
+     * @param location the location of a particle
+     * @return the objective function value
+     */
+    double evalObj(BitLocation location);
+
+    /**
+     * Calculate the constraint function value based on the current location.
+     * If your model has no constraint, there is no need to implement this method.
+     *
+     * @param location the location of a particle
+     * @return the constraint function value
+     */
+    default double evalConstr(BitLocation location) {
+        return 0;
+    }
+
+    /**
+     * @return the dimension of the state variable
+     */
+    int getDimentions();
+
+    /**
+     * @return maximum iteration times，the default value if {@code 1000}
+     */
+    default int getMaxIter() {
+        return 1000;
+    }
+
+    /**
+     * @return the tolerant minimum objective function value of the model, see {@link OptModel#getTolFitness()}
+     */
+    default double getTolFitness() {
+        return -99999;
+    }
+}
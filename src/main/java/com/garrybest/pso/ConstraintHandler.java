@@ -0,0 +1,49 @@
+package com.garrybest.pso;
+
+/**
+ * Decides how the particles are ranked when the model has constraints.
+ * A particle is described by its fitness and its total constraint violation; the fitness is the
+ * objective function value when the violation is within the tolerance {@code epsilon} of the
+ * iteration, and {@code violation + PUNISHMENT} otherwise.
+ * <p>
+ * A handler is stateless, the solver keeps the tolerance, so one handler can be shared
+ * by several solvers. See {@link ConstraintHandlers} for the built-in handlers.
+ */
+public interface ConstraintHandler {
+
+    /**
+     * Compare two particles.
+     *
+     * @param fitness1   the fitness value of the first particle
+     * @param violation1 the constraint violation of the first particle
+     * @param fitness2   the fitness value of the second particle
+     * @param violation2 the constraint violation of the second particle
+     * @param epsilon    the tolerance of the violation in the current iteration
+     * @return whether the first particle is strictly better than the second
+     */
+    boolean isBetter(double fitness1, double violation1, double fitness2, double violation2, double epsilon);
+
+    /**
+     * Called once the swarm is initialized, with the violations of every particle.
+     *
+     * @param violation the constraint violation of each particle
+     * @return the initial tolerance of the violation
+     */
+    default double getInitialEpsilon(double[] violation) {
+        return 0;
+    }
+
+    /**
+     * The tolerance of the violation, the locations within it are ranked by their objective
+     * function value. It must not increase over a run. The initial swarm is evaluated with
+     * {@code initialEpsilon} set to infinity, before the actual initial tolerance is known.
+     *
+     * @param initialEpsilon the value of {@link #getInitialEpsilon(double[])}
+     * @param iterNum        the current iteration
+     * @param maxIter        the maximum iteration times
+     * @return the tolerance, 0 means that only feasible locations are ranked by objective
+     */
+    default double getEpsilon(double initialEpsilon, int iterNum, int maxIter) {
+        return 0;
+    }
+}
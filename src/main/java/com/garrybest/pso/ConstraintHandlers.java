@@ -0,0 +1,91 @@
+package com.garrybest.pso;
+
+import java.util.Arrays;
+
+/**
+ * Factory of the built-in {@link ConstraintHandler}s.
+ */
+public final class ConstraintHandlers {
+
+    private static final ConstraintHandler PENALTY = (fitness1, violation1, fitness2, violation2, epsilon) -> fitness1 < fitness2;
+
+    private static final ConstraintHandler FEASIBILITY_RULES = ConstraintHandlers::isEpsilonBetter;
+
+    private ConstraintHandlers() {
+    }
+
+    /**
+     * Rank the particles by fitness only, where an infeasible location is punished by
+     * {@link PSOConstants#PUNISHMENT}, this is the default.
+     */
+    public static ConstraintHandler penalty() {
+        return PENALTY;
+    }
+
+    /**
+     * Deb's feasibility rules: a feasible location is better than an infeasible one, two feasible
+     * locations are compared by objective and two infeasible ones by violation.
+     * Unlike {@link #penalty()}, the ranking does not depend on the scale of the objective.
+     */
+    public static ConstraintHandler feasibilityRules() {
+        return FEASIBILITY_RULES;
+    }
+
+    /**
+     * The epsilon constrained method with the default parameters, see
+     * {@link #epsilon(double, double, double)}.
+     */
+    public static ConstraintHandler epsilon() {
+        return epsilon(0.2, 5, 0.2);
+    }
+
+    /**
+     * The epsilon constrained method of Takahama and Sakai. Locations whose violation is within
+     * epsilon are compared by objective, so the swarm can cross slightly infeasible regions towards
+     * the optimum. The initial epsilon is the violation of the {@code theta} quantile of the initial swarm,
+     * it shrinks as {@code (1 - t / Tc) ^ exponent} and is 0 from {@code Tc = controlFraction * maxIter},
+     * after which the method is the same as {@link #feasibilityRules()}.
+     *
+     * @param theta           the quantile of the initial violations, in {@code [0, 1]}
+     * @param exponent        how fast epsilon shrinks
+     * @param controlFraction the fraction of the run after which only feasible locations are ranked by objective
+     */
+    public static ConstraintHandler epsilon(double theta, double exponent, double controlFraction) {
+        if (theta < 0 || theta > 1)
+            throw new IllegalArgumentException("The quantile must be in [0, 1]: " + theta);
+        if (controlFraction <= 0)
+            throw new IllegalArgumentException("The control fraction must be positive: " + controlFraction);
+        return new ConstraintHandler() {
+            @Override
+            public boolean isBetter(double fitness1, double violation1, double fitness2, double violation2, double epsilon) {
+                return isEpsilonBetter(fitness1, violation1, fitness2, violation2, epsilon);
+            }
+
+            @Override
+            public double getInitialEpsilon(double[] violation) {
+                double[] sorted = violation.clone();
+                Arrays.sort(sorted);
+                return sorted[Math.min(sorted.length - 1, (int) (theta * sorted.length))];
+            }
+
+            @Override
+            public double getEpsilon(double initialEpsilon, int iterNum, int maxIter) {
+                double controlIter = controlFraction * maxIter;
+                if (iterNum >= controlIter)
+                    return 0;
+                return initialEpsilon * Math.pow(1 - iterNum / controlIter, exponent);
+            }
+        };
+    }
+
+    /**
+     * The epsilon level comparison, two violations within epsilon are treated as equal.
+     */
+    private static boolean isEpsilonBetter(double fitness1, double violation1, double fitness2, double violation2, double epsilon) {
+        if (violation1 <= epsilon && violation2 <= epsilon)
+            return fitness1 < fitness2;
+        if (violation1 != violation2)
+            return violation1 < violation2;
+        return fitness1 < fitness2;
+    }
+}
@@ -0,0 +1,41 @@
+package com.garrybest.pso;
+
+/**
+ * An optional extension of {@link OptModel} that updates the evaluation of a particle from its previous one.
+ * Implement it when your model can update the objective function value and the constraint function value
+ * in time proportional to the number of changed dimensions, e.g. a sum over the dimensions.
+ * <p>
+ * The solvers compare every location with the previous location of the same particle before it is
+ * evaluated. A particle that has not moved keeps its previous result without calling the model. A particle
+ * that has changed in at most {@link #getMaxChangedRatio()} of the dimensions is updated by
+ * {@link #evalDelta}, the others are evaluated in full by {@link #evalObjAndConstr(Location, EvalResult)}.
+ * The previous result always has the objective function value, otherwise the location is evaluated in full.
+ * <p>
+ * A {@link BatchOptModel} is always evaluated in a batch, and the delta evaluation is not used.
+ */
+public interface DeltaOptModel extends OptModel {
+
+    /**
+     * Evaluate the objective function value and the constraint function value of a location that differs
+     * from the previous location of the particle only in the changed dimensions.
+     * Like {@link #evalObjAndConstr(Location, EvalResult)}, the objective function value may be {@code NaN}
+     * if the constraint function value is positive.
+     *
+     * @param location       the location of a particle
+     * @param previous       the flat array holding the previous location, owned by the solver, please do not modify it
+     * @param offset         the offset of the previous location in {@code previous}
+     * @param previousResult the result of the previous location
+     * @param changed        the indices of the changed dimensions in ascending order, from {@code 0} to {@code changedCount}
+     * @param changedCount   the number of changed dimensions, at least 1
+     * @param result         output, the holder of the two values
+     */
+    void evalDelta(Location location, double[] previous, int offset, EvalResult previousResult,
+                   int[] changed, int changedCount, EvalResult result);
+
+    /**
+     * @return the largest fraction of changed dimensions that is evaluated by {@link #evalDelta}, the default is 0.5
+     */
+    default double getMaxChangedRatio() {
+        return 0.5;
+    }
+}
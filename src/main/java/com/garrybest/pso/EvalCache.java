@@ -0,0 +1,206 @@
+package com.garrybest.pso;
+
+import java.util.Arrays;
+
+/**
+ * A bounded cache of evaluation results for binary locations.
+ * A location is keyed by its bits packed into {@code long} words, and when the cache is full
+ * an entry is evicted with the CLOCK algorithm. All the storage is preallocated, so neither
+ * a lookup nor an insertion allocates.
+ * <p>
+ * The cache is not thread-safe. {@link SwarmEvaluator} only touches it from the calling thread,
+ * before and after the parallel evaluation of the misses.
+ */
+public class EvalCache {
+
+    private static final int EMPTY = -1;
+
+    private final int capacity;
+    private final int words;
+    private final long[] keys;
+    private final double[] objectives;
+    private final double[] violations;
+    private final int[] hashes;
+    private final int[] next;
+    private final boolean[] referenced;
+    private final int[] buckets;
+    private final int mask;
+    private int size;
+    private int hand;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param capacity  the maximum number of cached locations
+     * @param dimension the dimension of the state variable
+     */
+    public EvalCache(int capacity, int dimension) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.words = wordCount(dimension);
+        this.keys = new long[capacity * words];
+        this.objectives = new double[capacity];
+        this.violations = new double[capacity];
+        this.hashes = new int[capacity];
+        this.next = new int[capacity];
+        this.referenced = new boolean[capacity];
+        int bucketCount = Integer.highestOneBit(Math.max(1, capacity - 1)) << 2;
+        this.buckets = new int[bucketCount];
+        this.mask = bucketCount - 1;
+        Arrays.fill(buckets, EMPTY);
+    }
+
+    /**
+     * @param dimension the dimension of the state variable
+     * @return the number of {@code long} words of a packed key
+     */
+    public static int wordCount(int dimension) {
+        return (dimension + 63) >>> 6;
+    }
+
+    /**
+     * Pack a binary location into {@code long} words, a dimension is set if it is not zero.
+     *
+     * @param positions the array holding the location
+     * @param offset    the offset of the location
+     * @param dimension the dimension of the state variable
+     * @param key       output, the packed key
+     * @param keyOffset the offset of the key
+     */
+    public static void pack(double[] positions, int offset, int dimension, long[] key, int keyOffset) {
+        int words = wordCount(dimension);
+        for (int w = 0; w < words; w++) {
+            long word = 0;
+            int end = Math.min(64, dimension - (w << 6));
+            for (int b = 0; b < end; b++) {
+                if (positions[offset + (w << 6) + b] != 0)
+                    word |= 1L << b;
+            }
+            key[keyOffset + w] = word;
+        }
+    }
+
+    /**
+     * Look up a location. An infeasible location within the tolerance {@code epsilon} needs its
+     * objective function value, so an entry without it is a miss.
+     *
+     * @param key       the packed keys
+     * @param keyOffset the offset of the key
+     * @param result    output, filled if the location is cached
+     * @param epsilon   the tolerance of the constraint violation, see {@link ConstraintHandler}
+     * @return whether the location is cached with the values needed
+     */
+    public boolean get(long[] key, int keyOffset, EvalResult result, double epsilon) {
+        int slot = find(key, keyOffset, hash(key, keyOffset));
+        if (slot == EMPTY || Double.isNaN(objectives[slot]) && violations[slot] > 0 && violations[slot] <= epsilon) {
+            misses++;
+            return false;
+        }
+        hits++;
+        referenced[slot] = true;
+        result.setObjective(objectives[slot]);
+        result.setViolation(violations[slot]);
+        return true;
+    }
+
+    /**
+     * Cache the evaluation result of a location, evicting an entry if the cache is full.
+     *
+     * @param key       the packed keys
+     * @param keyOffset the offset of the key
+     * @param result    the evaluation result
+     */
+    public void put(long[] key, int keyOffset, EvalResult result) {
+        int hash = hash(key, keyOffset);
+        int slot = find(key, keyOffset, hash);
+        if (slot == EMPTY) {
+            slot = size < capacity ? size++ : evict();
+            System.arraycopy(key, keyOffset, keys, slot * words, words);
+            hashes[slot] = hash;
+            next[slot] = buckets[hash & mask];
+            buckets[hash & mask] = slot;
+        }
+        objectives[slot] = result.getObjective();
+        violations[slot] = result.getViolation();
+        referenced[slot] = false;
+    }
+
+    /**
+     * Remove every entry, the counters are kept.
+     */
+    public void clear() {
+        Arrays.fill(buckets, EMPTY);
+        Arrays.fill(referenced, false);
+        size = 0;
+        hand = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Advance the clock hand past the referenced entries and unlink the first one that is not.
+     */
+    private int evict() {
+        while (referenced[hand]) {
+            referenced[hand] = false;
+            hand = (hand + 1) % capacity;
+        }
+        int victim = hand;
+        hand = (hand + 1) % capacity;
+
+        int bucket = hashes[victim] & mask;
+        if (buckets[bucket] == victim) {
+            buckets[bucket] = next[victim];
+        } else {
+            int slot = buckets[bucket];
+            while (next[slot] != victim) {
+                slot = next[slot];
+            }
+            next[slot] = next[victim];
+        }
+        return victim;
+    }
+
+    private int find(long[] key, int keyOffset, int hash) {
+        for (int slot = buckets[hash & mask]; slot != EMPTY; slot = next[slot]) {
+            if (hashes[slot] == hash && equals(slot, key, keyOffset))
+                return slot;
+        }
+        return EMPTY;
+    }
+
+    private boolean equals(int slot, long[] key, int keyOffset) {
+        int base = slot * words;
+        for (int w = 0; w < words; w++) {
+            if (keys[base + w] != key[keyOffset + w])
+                return false;
+        }
+        return true;
+    }
+
+    private int hash(long[] key, int keyOffset) {
+        long h = 0;
+        for (int w = 0; w < words; w++) {
+            h = h * 0x9E3779B97F4A7C15L + key[keyOffset + w];
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
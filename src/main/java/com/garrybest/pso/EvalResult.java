@@ -0,0 +1,26 @@
+package com.garrybest.pso;
+
+/**
+ * The holder of the objective function value and the constraint function value of a location.
+ * The solvers preallocate one holder per particle and reuse it in every iteration.
+ */
+public class EvalResult {
+    private double objective;
+    private double violation;
+
+    public double getObjective() {
+        return objective;
+    }
+
+    public void setObjective(double objective) {
+        this.objective = objective;
+    }
+
+    public double getViolation() {
+        return violation;
+    }
+
+    public void setViolation(double violation) {
+        this.violation = violation;
+    }
+}
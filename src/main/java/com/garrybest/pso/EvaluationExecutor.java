@@ -0,0 +1,28 @@
+package com.garrybest.pso;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Runs the fitness evaluation of a whole swarm.
+ * An implementation may evaluate the particles concurrently, so the {@link OptModel}
+ * must be thread-safe when a parallel executor is used.
+ * See {@link EvaluationExecutors} for the built-in implementations.
+ */
+public interface EvaluationExecutor extends AutoCloseable {
+
+    /**
+     * Run the task for every particle index in {@code [0, count)}.
+     * This method must not return until all the tasks have finished.
+     *
+     * @param count the number of particles
+     * @param task  the evaluation of a single particle
+     */
+    void forEach(int count, IntConsumer task);
+
+    /**
+     * Release the threads held by the executor, if any.
+     */
+    @Override
+    default void close() {
+    }
+}
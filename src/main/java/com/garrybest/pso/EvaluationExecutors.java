@@ -0,0 +1,139 @@
+package com.garrybest.pso;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Factory of the built-in {@link EvaluationExecutor}s.
+ */
+public final class EvaluationExecutors {
+
+    private static final EvaluationExecutor SEQUENTIAL = (count, task) -> {
+        for (int i = 0; i < count; i++) {
+            task.accept(i);
+        }
+    };
+
+    private EvaluationExecutors() {
+    }
+
+    /**
+     * Evaluate the particles one after another on the caller thread, this is the default.
+     */
+    public static EvaluationExecutor sequential() {
+        return SEQUENTIAL;
+    }
+
+    /**
+     * Evaluate the particles on the common {@link ForkJoinPool}.
+     */
+    public static EvaluationExecutor forkJoin() {
+        return forkJoin(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Evaluate the particles on the given {@link ForkJoinPool}.
+     * The pool is owned by the caller and is not shut down by {@link EvaluationExecutor#close()}.
+     *
+     * @param pool the pool to run the evaluation
+     */
+    public static EvaluationExecutor forkJoin(ForkJoinPool pool) {
+        if (pool == ForkJoinPool.commonPool())
+            return (count, task) -> IntStream.range(0, count).parallel().forEach(task);
+        return (count, task) -> pool.submit(() -> IntStream.range(0, count).parallel().forEach(task)).join();
+    }
+
+    /**
+     * Evaluate the particles on a fixed pool of daemon threads.
+     * Particles are handed out one at a time, so a slow evaluation does not hold up a whole chunk.
+     *
+     * @param nThreads the number of threads
+     */
+    public static EvaluationExecutor fixedThreadPool(int nThreads) {
+        if (nThreads <= 0)
+            throw new IllegalArgumentException("The number of threads must be positive: " + nThreads);
+        ExecutorService service = Executors.newFixedThreadPool(nThreads, r -> {
+            Thread thread = new Thread(r, "pso-evaluation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new ServiceExecutor(service, nThreads);
+    }
+
+    /**
+     * Evaluate every particle on its own virtual thread.
+     * Virtual threads are looked up reflectively, as the solver itself targets Java 8.
+     *
+     * @throws UnsupportedOperationException if the running JVM is older than Java 21
+     */
+    public static EvaluationExecutor virtualThreads() {
+        ExecutorService service;
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            service = (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later", e);
+        }
+        return new ServiceExecutor(service, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Runs the tasks on an {@link ExecutorService} with at most {@code parallelism} workers,
+     * each worker claims the next particle index until none is left.
+     */
+    private static final class ServiceExecutor implements EvaluationExecutor {
+        private final ExecutorService service;
+        private final int parallelism;
+
+        ServiceExecutor(ExecutorService service, int parallelism) {
+            this.service = service;
+            this.parallelism = parallelism;
+        }
+
+        @Override
+        public void forEach(int count, IntConsumer task) {
+            AtomicInteger next = new AtomicInteger();
+            int workers = Math.min(parallelism, count);
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int w = 0; w < workers; w++) {
+                futures.add(service.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < count) {
+                        task.accept(i);
+                    }
+                }));
+            }
+            try {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Fitness evaluation was interrupted", e);
+            } catch (ExecutionException e) {
+                futures.forEach(f -> f.cancel(true));
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                if (cause instanceof Error)
+                    throw (Error) cause;
+                throw new IllegalStateException(cause);
+            }
+        }
+
+        @Override
+        public void close() {
+            service.shutdown();
+        }
+    }
+}
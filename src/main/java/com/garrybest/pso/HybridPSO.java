@@ -1,9 +1,10 @@
 package com.garrybest.pso;
 
+import com.garrybest.pso.SolverMetrics.Phase;
 
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -19,7 +20,16 @@ public class HybridPSO extends AbstractPSO implements PSOConstants {
 
     private OptModel optModel;
     private double[] fitness;
-    private boolean isGBestfeasible = false;
+    private boolean[] feasible;
+    private double[] violation;
+    private SwarmEvaluator evaluator;
+    private double[] minLoc;
+    private double[] maxLoc;
+    private double[] minVel;
+    private double[] maxVel;
+    private Topology topology = Topologies.global();
+    private Surrogate surrogate;
+    private double[] mutationCoeff;
 
     /**
      * Constructs a hybrid PSO solver, the default size of swarm is {@code 10 + 2 * sqrt(n)}
@@ -40,7 +50,7 @@ public class HybridPSO extends AbstractPSO implements PSOConstants {
     public HybridPSO(OptModel optModel, int swarmSize) {
         super(swarmSize);
         this.optModel = optModel;
-        this.fitness = new double[swarmSize];
+        allocate();
     }
 
     /**
@@ -65,214 +75,443 @@ public class HybridPSO extends AbstractPSO implements PSOConstants {
     public HybridPSO(OptModel optModel, int swarmSize, double[] initVariableState) {
         super(swarmSize, initVariableState);
         this.optModel = optModel;
+        allocate();
+    }
+
+    /**
+     * Allocate every buffer used by the iterations, so that an iteration itself does not allocate.
+     */
+    private void allocate() {
+        int n = optModel.getDimentions();
         this.fitness = new double[swarmSize];
+        this.feasible = new boolean[swarmSize];
+        this.violation = new double[swarmSize];
+        this.swarm = new SwarmStore(swarmSize, n);
+        this.evaluator = new SwarmEvaluator(optModel, swarm, fitness, feasible, violation);
+        this.mutationCoeff = new double[n];
+    }
+
+    private void loadBounds() {
+        minLoc = optModel.getMinLoc();
+        maxLoc = optModel.getMaxLoc();
+        minVel = optModel.getMinVel();
+        maxVel = optModel.getMaxVel();
+        double diagonal = 0;
+        for (int j = 0; j < minLoc.length; j++) {
+            diagonal += (maxLoc[j] - minLoc[j]) * (maxLoc[j] - minLoc[j]);
+        }
+        searchDiagonal = Math.sqrt(diagonal);
     }
 
     @Override
     protected void initializeSwarm() {
-        Particle p;
         int n = optModel.getDimentions();
-        double[] minLoc = optModel.getMinLoc();
-        double[] maxLoc = optModel.getMaxLoc();
-        double[] minVel = optModel.getMinVel();
-        double[] maxVel = optModel.getMaxVel();
+        loadBounds();
+        startRun(optModel.getMaxIter(), optModel.getTolFitness());
+        double[] x = swarm.getPositions();
+        double[] v = swarm.getVelocities();
 
         for (int i = 0; i < swarmSize; i++) {
-            p = new Particle();
-
-            double[] loc = new double[n];
-            double[] vel = new double[n];
+            int offset = swarm.offset(i);
+            RandomSource random = particleGenerators[i];
 
             // Randomize the location and velocity of particles
             if (isWarmStart) {
                 for (int j = 0; j < n; j++) {
-                    loc[j] = initVariableState[j];
-                    vel[j] = minVel[j] + generator.nextDouble() * (maxVel[j] - minVel[j]);
+                    x[offset + j] = initVariableState[j];
+                    v[offset + j] = minVel[j] + random.nextDouble() * (maxVel[j] - minVel[j]);
                 }
             } else {
                 for (int j = 0; j < n; j++) {
-                    loc[j] = minLoc[j] + generator.nextDouble() * (maxLoc[j] - minLoc[j]);
-                    vel[j] = minVel[j] + generator.nextDouble() * (maxVel[j] - minVel[j]);
+                    x[offset + j] = minLoc[j] + random.nextDouble() * (maxLoc[j] - minLoc[j]);
+                    v[offset + j] = minVel[j] + random.nextDouble() * (maxVel[j] - minVel[j]);
                 }
             }
-            Location location = new Location(loc);
-            Velocity velocity = new Velocity(vel);
-
-            p.setLocation(location);
-            p.setVelocity(velocity);
-            swarm.add(p);
+        }
 
-            double violation = optModel.evalConstr(location);
-            if (violation > 0) {
-                fitness[i] = violation + PUNISHMENT;
-            } else {
-                fitness[i] = optModel.evalObj(location);
+        evaluator.setEpsilon(resetEpsilon());
+        evaluator.clearStatistics();
+        evaluator.forgetPrevious();
+        evaluations += evaluator.evaluateAll(evaluationExecutor);
+        calibrateEpsilon(fitness, violation);
+        evaluator.setEpsilon(epsilon);
+        for (int i = 0; i < swarmSize; i++) {
+            if (feasible[i])
                 isGBestfeasible = true;
-            }
-
             pBest[i] = fitness[i];
-            pBestLocation.add(location);
+            pBestViolation[i] = violation[i];
+            swarm.savePBest(i);
         }
 
         // find gBest
-        int bestParticleIndex = PSOUtil.getMinPos(fitness);
+        int bestParticleIndex = getBestPos(fitness, violation);
         gBest = fitness[bestParticleIndex];
-        gBestLocation = swarm.get(bestParticleIndex).getLocation();
+        gBestViolation = violation[bestParticleIndex];
+        swarm.saveGBest(bestParticleIndex);
+        gBestLocation = swarm.getgBestLocation();
+        topology.initialize(this);
     }
 
     @Override
     public void execute() {
         initializeSwarm();
+        run(maxIter);
+        fireTermination();
 
-        int iterNum = 0;
-        int n = optModel.getDimentions();
-        int maxIter = optModel.getMaxIter();
-        double[] minLoc = optModel.getMinLoc();
-        double[] maxLoc = optModel.getMaxLoc();
-        double[] minVel = optModel.getMinVel();
-        double[] maxVel = optModel.getMaxVel();
+        if (isGBestfeasible) {
+            logger.info("Solution found at iteration " + iterNum + ", best fitness value: " + gBest);
+        } else {
+            logger.warning("Solution not found");
+        }
+    }
 
+    /**
+     * Restore the swarm from a checkpoint written by {@link #saveCheckpoint(Path)} and
+     * run the remaining iterations. The samples of the surrogate are not in the checkpoint,
+     * so with a surrogate the resumed run is not the same as the original one.
+     *
+     * @param checkpoint the checkpoint file
+     * @throws IOException if the checkpoint cannot be read
+     */
+    public void resume(Path checkpoint) throws IOException {
+        loadBounds();
+        SwarmCheckpoint.read(this, checkpoint);
+        topology.initialize(this);
+        run(maxIter - iterNum);
+        fireTermination();
 
-        double tol = 1e6;
-        double w; // inertia weight
+        if (isGBestfeasible) {
+            logger.info("Solution found at iteration " + iterNum + ", best fitness value: " + gBest);
+        } else {
+            logger.warning("Solution not found");
+        }
+    }
+
+    /**
+     * Run at most {@code iterations} more iterations on the initialized swarm,
+     * it stops early once the solver is terminated.
+     *
+     * @param iterations the maximum number of iterations to run
+     * @return whether the solver is terminated
+     */
+    protected boolean run(int iterations) {
+        for (int k = 0; k < iterations && !isTerminated(); k++) {
+            long evaluationsBefore = evaluations;
+            iterate();
 
-        while (iterNum < maxIter && tol > 0) {
-            w = W_UPPERBOUND - (((double) iterNum) / maxIter) * (W_UPPERBOUND - W_LOWERBOUND); // decrease gradually
+            if (logger.isLoggable(Level.FINE))
+                logger.fine("ITERATION " + iterNum + ": Value: " + gBest + "  " + isGBestfeasible);
+            iterNum++;
+            if (monitored)
+                fireIterationEnd(evaluations - evaluationsBefore);
+        }
+        return isTerminated();
+    }
 
-            for (int i = 0; i < swarmSize; i++) {
-                double r1 = generator.nextDouble();
-                double r2 = generator.nextDouble();
+    /**
+     * Replace the particle with the worst pBest by a migrant from another swarm,
+     * if the migrant is better. The migrant becomes the pBest of that particle.
+     *
+     * @param position         the location of the migrant
+     * @param migrantFitness   the fitness value of the migrant
+     * @param migrantViolation the constraint violation of the migrant
+     */
+    protected void immigrate(double[] position, double migrantFitness, double migrantViolation) {
+        int worst = getWorstPos(pBest, pBestViolation);
+        if (!isBetter(migrantFitness, migrantViolation, pBest[worst], pBestViolation[worst]))
+            return;
+
+        int n = swarm.getDimension();
+        System.arraycopy(position, 0, swarm.getPositions(), swarm.offset(worst), n);
+        System.arraycopy(position, 0, swarm.getpBestPositions(), swarm.offset(worst), n);
+        fitness[worst] = migrantFitness;
+        feasible[worst] = migrantViolation <= 0;
+        violation[worst] = migrantViolation;
+        pBest[worst] = migrantFitness;
+        pBestViolation[worst] = migrantViolation;
+        topology.onPBestImproved(worst);
+        diversityIteration = -1;
+        if (feasible[worst])
+            isGBestfeasible = true;
+        if (isBetter(migrantFitness, migrantViolation, gBest, gBestViolation)) {
+            double previous = gBest;
+            gBest = migrantFitness;
+            gBestViolation = migrantViolation;
+            swarm.saveGBest(worst);
+            if (monitored)
+                fireImprovement(previous);
+        }
+    }
 
-                Particle p = swarm.get(i);
+    /**
+     * Run a single iteration on the initialized swarm.
+     * With the sequential evaluation executor, an iteration allocates nothing.
+     */
+    protected void iterate() {
+        parameterController.update(this);
+        updateEpsilon();
+        evaluator.setEpsilon(epsilon);
+        long mark = startPhase();
+        updateVelocityAndLocation(parameterController.getInertia());
+        mark = endPhase(Phase.VELOCITY_UPDATE, mark);
+        hybridize();
+        mark = endPhase(Phase.HYBRIDIZATION, mark);
+        mutate(parameterController.getMutationProbability());
+        mark = endPhase(Phase.MUTATION, mark);
+
+        // Step 5：upate fitness value
+        evaluations += evaluator.evaluate(evaluationExecutor);
+        mark = endPhase(Phase.EVALUATION, mark);
+        updateBest();
+        mark = endPhase(Phase.BEST_UPDATE, mark);
+        int restartSize = getRestartSize();
+        if (restartSize > 0)
+            restart(restartSize);
+        endPhase(Phase.RESTART, mark);
+    }
 
-                // Step 1：update velocity
-                double[] newVel = new double[n];
-                for (int j = 0; j < n; j++) {
-                    double tempVel = (w * p.getVelocity().getVel()[j]) +
-                            (r1 * C1) * (pBestLocation.get(i).getLoc()[j] - p.getLocation().getLoc()[j]) +
-                            (r2 * C2) * (gBestLocation.getLoc()[j] - p.getLocation().getLoc()[j]);
-                    newVel[j] = PSOUtil.restrictByBoundary(tempVel, maxVel[j], minVel[j]);
-                }
-                p.setVelocity(new Velocity(newVel));
+    /**
+     * Step 1 and 2 of an iteration, move every particle with {@link PSOUtil#moveParticle}
+     * towards its pBest and the gBest, or the lbest of its {@link Topology}.
+     *
+     * @param w the inertia weight
+     */
+    protected void updateVelocityAndLocation(double w) {
+        double c1 = parameterController.getCognitive();
+        double c2 = parameterController.getSocial();
+        int n = swarm.getDimension();
+        double[] x = swarm.getPositions();
+        double[] v = swarm.getVelocities();
+        double[] pBestX = swarm.getpBestPositions();
+        boolean global = topology.isGlobal();
+        double[] socialX = global ? swarm.getgBestPosition() : pBestX;
 
-                // Step 2：update location
-                double[] newLoc = new double[n];
-                for (int j = 0; j < n; j++) {
-                    double previousLoc = p.getLocation().getLoc()[j];
-                    double tempLoc = previousLoc + newVel[j];
-                    newLoc[j] = PSOUtil.restrictByBoundary(tempLoc, maxLoc[j], minLoc[j]);
-                }
-                p.setLocation(new Location(newLoc));
-            }
+        for (int i = 0; i < swarmSize; i++) {
+            RandomSource random = particleGenerators[i];
+            double r1 = random.nextDouble() * c1;
+            double r2 = random.nextDouble() * c2;
+            int socialOffset = global ? 0 : swarm.offset(topology.getNeighborBest(i));
+            PSOUtil.moveParticle(x, v, pBestX, socialX, socialOffset, swarm.offset(i), n,
+                    w, r1, r2, minVel, maxVel, minLoc, maxLoc);
+        }
+    }
 
-            // Step 3：hybridization
-            Set<Particle> pool = new HashSet<>();
-            int hybridPoolSize = (int) (swarmSize * HYBRID_PROBABILITY);
-            if ((hybridPoolSize & 1) == 1) // odd number
-                hybridPoolSize++;
-            while (pool.size() < hybridPoolSize) {
-                Particle p = swarm.get((int) (Math.random() * swarmSize));
-                pool.add(p);
+    /**
+     * Step 3 of an iteration, cross over random pairs of particles.
+     */
+    protected void hybridize() {
+        int n = swarm.getDimension();
+        double[] x = swarm.getPositions();
+        double[] v = swarm.getVelocities();
+
+        int hybridPoolSize = (int) (swarmSize * parameterController.getHybridProbability());
+        if ((hybridPoolSize & 1) == 1) // odd number
+            hybridPoolSize++;
+        hybridPoolSize = Math.min(hybridPoolSize, swarmSize & ~1);
+        PSOUtil.samplePool(generator, swarmSize, hybridPoolSize, pool);
+        for (int k = 0; k < hybridPoolSize; k += 2) {
+            int offset1 = swarm.offset(pool[k]);
+            int offset2 = swarm.offset(pool[k + 1]);
+
+            double velNorm1 = PSOUtil.getVecNorm(v, offset1, n); // |v1|
+            double velNorm2 = PSOUtil.getVecNorm(v, offset2, n); // |v2|
+            double tempNorm = 0;
+            for (int i = 0; i < n; i++) {
+                double tempVel = v[offset1 + i] + v[offset2 + i];
+                tempNorm += tempVel * tempVel;
             }
-            Iterator iter = pool.iterator();
-            while (iter.hasNext()) {
-                Particle p1 = (Particle) iter.next();
-                Particle p2 = (Particle) iter.next();
-
-                double velNorm1 = PSOUtil.getVecNorm(p1.getVelocity().getVel()); // |v1|
-                double velNorm2 = PSOUtil.getVecNorm(p2.getVelocity().getVel()); // |v2|
-                double[] tempVel = new double[n];
-                for (int i = 0; i < p1.getVelocity().getVel().length; i++) {
-                    tempVel[i] = p1.getVelocity().getVel()[i] + p2.getVelocity().getVel()[i];
-                }
-                double tempNorm = PSOUtil.getVecNorm(tempVel); // |v1 + v2|
-
-                double coefficient1 = velNorm1 / tempNorm; // |v1| / |v1 + v2|
-                double coefficient2 = velNorm2 / tempNorm; // |v2| / |v1 + v2|
-
-                double[] loc1 = new double[n];
-                double[] loc2 = new double[n];
-                double[] vel1 = new double[n];
-                double[] vel2 = new double[n];
-                for (int i = 0; i < n; i++) {
-                    double pb = Math.random();
-                    loc1[i] = pb * p1.getLocation().getLoc()[i] + (1 - pb) * p2.getLocation().getLoc()[i];
-                    loc2[i] = pb * p2.getLocation().getLoc()[i] + (1 - pb) * p1.getLocation().getLoc()[i];
-                    vel1[i] = PSOUtil.restrictByBoundary(tempVel[i] * coefficient1, maxVel[i], minVel[i]);
-                    vel2[i] = PSOUtil.restrictByBoundary(tempVel[i] * coefficient2, maxVel[i], minVel[i]);
-                }
-                p1.setLocation(new Location(loc1));
-                p1.setVelocity(new Velocity(vel1));
-                p2.setLocation(new Location(loc2));
-                p2.setVelocity(new Velocity(vel2));
+            tempNorm = Math.sqrt(tempNorm); // |v1 + v2|
+            if (tempNorm == 0) // v1 + v2 = 0, so are the new velocities
+                tempNorm = Double.POSITIVE_INFINITY;
+
+            double coefficient1 = velNorm1 / tempNorm; // |v1| / |v1 + v2|
+            double coefficient2 = velNorm2 / tempNorm; // |v2| / |v1 + v2|
+
+            for (int i = 0; i < n; i++) {
+                double pb = generator.nextDouble();
+                double loc1 = x[offset1 + i];
+                double loc2 = x[offset2 + i];
+                double tempVel = v[offset1 + i] + v[offset2 + i];
+                x[offset1 + i] = pb * loc1 + (1 - pb) * loc2;
+                x[offset2 + i] = pb * loc2 + (1 - pb) * loc1;
+                v[offset1 + i] = PSOUtil.restrictByBoundary(tempVel * coefficient1, maxVel[i], minVel[i]);
+                v[offset2 + i] = PSOUtil.restrictByBoundary(tempVel * coefficient2, maxVel[i], minVel[i]);
             }
+        }
+    }
 
-            // Step 4：gaussian mutation
-            pool.clear();
-            double mutationProbability = MUTATION_UPPERBOUND - (((double) iterNum) / maxIter) * (MUTATION_UPPERBOUND - MUTATION_LOWERBOUND);
-            int mutationPoolSize = (int) (swarmSize * mutationProbability);
-            while (pool.size() < mutationPoolSize) {
-                Particle p = swarm.get((int) (Math.random() * swarmSize));
-                pool.add(p);
+    /**
+     * Step 4 of an iteration, apply gaussian mutation to random particles.
+     *
+     * @param mutationProbability the fraction of the swarm to mutate
+     */
+    protected void mutate(double mutationProbability) {
+        int n = swarm.getDimension();
+        double[] x = swarm.getPositions();
+
+        int mutationPoolSize = (int) (swarmSize * mutationProbability);
+        PSOUtil.samplePool(generator, swarmSize, mutationPoolSize, pool);
+        // Get Gaussian mutation operator
+        for (int i = 0; i < n; i++) {
+            double sigma = (maxLoc[i] - minLoc[i]) * 0.1;
+            mutationCoeff[i] = generator.nextGaussian() * sigma;
+        }
+        for (int k = 0; k < mutationPoolSize; k++) {
+            int offset = swarm.offset(pool[k]);
+            for (int i = 0; i < n; i++) {
+                double tempLoc = x[offset + i] + mutationCoeff[i];
+                x[offset + i] = PSOUtil.restrictByBoundary(tempLoc, maxLoc[i], minLoc[i]);
             }
-            iter = pool.iterator();
-            // Get Gaussian mutation operator
-            double[] mutationCoeff = new double[n];
-            for (int i = 0; i < mutationCoeff.length; i++) {
-                double sigma = (maxLoc[i] - minLoc[i]) * 0.1;
-                mutationCoeff[i] = generator.nextGaussian() * sigma;
+        }
+    }
+
+    /**
+     * Give random particles a new random location and velocity within the bounds, they keep their pBest.
+     *
+     * @param restartSize the number of particles to restart
+     */
+    protected void restart(int restartSize) {
+        int n = swarm.getDimension();
+        double[] x = swarm.getPositions();
+        double[] v = swarm.getVelocities();
+
+        PSOUtil.samplePool(generator, swarmSize, restartSize, pool);
+        for (int k = 0; k < restartSize; k++) {
+            int offset = swarm.offset(pool[k]);
+            RandomSource random = particleGenerators[pool[k]];
+            for (int j = 0; j < n; j++) {
+                x[offset + j] = minLoc[j] + random.nextDouble() * (maxLoc[j] - minLoc[j]);
+                v[offset + j] = minVel[j] + random.nextDouble() * (maxVel[j] - minVel[j]);
             }
-            while (iter.hasNext()) {
-                Particle p = (Particle) iter.next();
-                double[] mutationLoc = new double[n];
-                for (int i = 0; i < mutationLoc.length; i++) {
-                    double previousLoc = p.getLocation().getLoc()[i];
-                    double tempLoc = previousLoc + mutationCoeff[i];
-                    mutationLoc[i] = PSOUtil.restrictByBoundary(tempLoc, maxLoc[i], minLoc[i]);
-                }
-                p.setLocation(new Location(mutationLoc));
+        }
+    }
+
+    /**
+     * Step 6 and 7 of an iteration, update pBest and gBest from the evaluated fitness.
+     */
+    protected void updateBest() {
+        int successes = 0;
+        for (int i = 0; i < swarmSize; i++) {
+            if (feasible[i])
+                isGBestfeasible = true;
+
+            // Step 6：upate pBest
+            if (isBetter(fitness[i], violation[i], pBest[i], pBestViolation[i])) {
+                pBest[i] = fitness[i];
+                pBestViolation[i] = violation[i];
+                swarm.savePBest(i);
+                topology.onPBestImproved(i);
+                successes++;
             }
+        }
 
-            for (int i = 0; i < swarmSize; i++) {
-                Location location = swarm.get(i).getLocation();
+        // Step 7：upate gBest
+        int bestParticleIndex = getBestPos(fitness, violation);
+        boolean improved = isBetter(fitness[bestParticleIndex], violation[bestParticleIndex], gBest, gBestViolation);
+        if (improved) {
+            double previous = gBest;
+            gBest = fitness[bestParticleIndex];
+            gBestViolation = violation[bestParticleIndex];
+            swarm.saveGBest(bestParticleIndex);
+            if (monitored)
+                fireImprovement(previous);
+        }
+        topology.onIterationEnd(improved);
+        parameterController.onIterationEnd(this, successes);
+    }
 
-                // Step 5：upate fitness value
-                double violation = optModel.evalConstr(location);
-                if (violation > 0) {
-                    fitness[i] = violation + PUNISHMENT;
-                } else {
-                    fitness[i] = optModel.evalObj(location);
-                    isGBestfeasible = true;
-                }
+    @Override
+    public double getFeasibleRatio() {
+        return PSOUtil.getFeasibleRatio(feasible);
+    }
 
-                // Step 6：upate pBest
-                if (fitness[i] < pBest[i]) {
-                    pBest[i] = fitness[i];
-                    pBestLocation.set(i, location);
-                }
-            }
+    /**
+     * Specify which pBest attracts each particle, the default is {@link Topologies#global()}.
+     * Set it before the swarm is initialized. A random topology draws new neighborhoods
+     * when a run is resumed from a checkpoint.
+     *
+     * @param topology the topology of the swarm, see {@link Topologies}
+     */
+    public void setTopology(Topology topology) {
+        this.topology = topology;
+    }
 
-            // Step 7：upate gBest
-            int bestParticleIndex = PSOUtil.getMinPos(fitness);
-            if (fitness[bestParticleIndex] < gBest) {
-                gBest = fitness[bestParticleIndex];
-                gBestLocation = swarm.get(bestParticleIndex).getLocation();
-            }
+    public Topology getTopology() {
+        return topology;
+    }
 
-            if (isGBestfeasible)
-                tol = gBest - optModel.getTolFitness();
-            logger.fine("ITERATION " + iterNum + ": Value: " + gBest + "  " + isGBestfeasible);
-            iterNum++;
-        }
+    /**
+     * Pre-screen the moved particles with a surrogate of the fitness, so that only the particles
+     * predicted to beat their pBest are evaluated by the model. Use it when an evaluation is expensive.
+     * The surrogate keeps its samples across runs, clear it for another model. It is disabled by default.
+     *
+     * @param surrogate the surrogate, e.g. a {@link KnnSurrogate}, {@code null} to disable it
+     */
+    public void setSurrogate(Surrogate surrogate) {
+        this.surrogate = surrogate;
+        evaluator.setSurrogate(surrogate, pBest);
+    }
 
-        if (isGBestfeasible) {
-            logger.info("Solution found at iteration " + iterNum + ", best fitness value: " + gBest);
-        } else {
-            logger.warning("Solution not found");
-        }
+    @Override
+    protected void resetSettings() {
+        super.resetSettings();
+        topology = Topologies.global();
+        setSurrogate(null);
+    }
+
+    /**
+     * Bind the solver to another model of the same dimension with the default settings,
+     * the swarm and every buffer are reused. The random streams continue, set the seed again
+     * for a reproducible run.
+     *
+     * @param optModel the model of the problem you want to solve
+     * @throws IllegalArgumentException if the dimension of the model differs from the solver
+     */
+    public void reset(OptModel optModel) {
+        if (optModel.getDimentions() != swarm.getDimension())
+            throw new IllegalArgumentException("The model has dimension " + optModel.getDimentions()
+                    + ", but the solver has " + swarm.getDimension());
+        resetSettings();
+        this.optModel = optModel;
+        evaluator.setOptModel(optModel);
+    }
+
+    public Surrogate getSurrogate() {
+        return surrogate;
+    }
+
+    /**
+     * @return the number of model evaluations saved by the surrogate in the current run
+     */
+    public long getSavedEvaluations() {
+        return evaluator.getSavedEvaluations();
     }
 
-    public boolean isGBestfeasible() {
-        return isGBestfeasible;
+    /**
+     * @return the mean absolute error of the surrogate on the particles evaluated in the current run,
+     * or {@code NaN} if there is none
+     */
+    public double getSurrogateError() {
+        return evaluator.getSurrogateError();
+    }
+
+    @Override
+    public void saveCheckpoint(Path file) throws IOException {
+        super.saveCheckpoint(file);
+    }
+
+    @Override
+    public void setConstraintHandler(ConstraintHandler constraintHandler) {
+        super.setConstraintHandler(constraintHandler);
+    }
+
+    @Override
+    public void setRestart(double threshold, double fraction) {
+        super.setRestart(threshold, fraction);
+    }
+
+    @Override
+    public void setParameterController(ParameterController parameterController) {
+        super.setParameterController(parameterController);
     }
 }
@@ -0,0 +1,325 @@
+package com.garrybest.pso;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Island model of {@link HybridPSO}. The solver runs K independent swarms on their own threads,
+ * and every M iterations the islands stop and send their best particle to their neighbors,
+ * where it replaces the worst particle. The islands explore separately between migrations,
+ * which protects the whole run from premature convergence.
+ * <p>
+ * The migration happens on the calling thread after all the islands have finished the same
+ * number of iterations, so the exchange does not depend on thread scheduling.
+ * The stopping criteria of the island solver apply to the whole run and are checked after
+ * every migration, the stopping criteria of an island only stop that island.
+ * Likewise, the listeners of the island solver are notified once per migration interval,
+ * with the metrics aggregated over the islands and no phase timing.
+ */
+public class IslandPSO extends AbstractPSO {
+
+    private static Logger logger = Logger.getLogger(IslandPSO.class.getName());
+
+    private final OptModel optModel;
+    private final int migrationInterval;
+    private final MigrationTopology topology;
+    private final HybridPSO[] islands;
+    private final double[][] migrants;
+    private final double[] migrantFitness;
+    private final double[] migrantViolation;
+    private ExecutorService service;
+
+    /**
+     * Constructs an island solver with one island per available processor, a ring topology
+     * and a migration every 20 iterations. The swarm size of each island is {@code 10 + 2 * sqrt(n)}.
+     *
+     * @param optModel the model of the problem you want to solve
+     */
+    public IslandPSO(OptModel optModel) {
+        this(optModel, Runtime.getRuntime().availableProcessors(),
+                (int) (10 + 2 * Math.sqrt(optModel.getDimentions())), 20, MigrationTopology.RING);
+    }
+
+    /**
+     * @param optModel          the model of the problem you want to solve
+     * @param islandCount       the number of islands K, each runs on its own thread
+     * @param swarmSize         the size of the swarm of each island
+     * @param migrationInterval the number of iterations M between two migrations
+     * @param topology          how the islands exchange their best particles
+     */
+    public IslandPSO(OptModel optModel, int islandCount, int swarmSize, int migrationInterval, MigrationTopology topology) {
+        super(swarmSize, 0);
+        if (islandCount <= 0)
+            throw new IllegalArgumentException("The number of islands must be positive: " + islandCount);
+        if (migrationInterval <= 0)
+            throw new IllegalArgumentException("The migration interval must be positive: " + migrationInterval);
+        this.optModel = optModel;
+        this.migrationInterval = migrationInterval;
+        this.topology = topology;
+        this.islands = new HybridPSO[islandCount];
+        for (int k = 0; k < islandCount; k++) {
+            islands[k] = new HybridPSO(optModel, swarmSize);
+        }
+        this.migrants = new double[islandCount][optModel.getDimentions()];
+        this.migrantFitness = new double[islandCount];
+        this.migrantViolation = new double[islandCount];
+        this.gBestLocation = new Location(new double[optModel.getDimentions()]);
+    }
+
+    /**
+     * Initialize every island. The threads of the islands are started by the first call that needs them,
+     * and stopped at the end of {@link #execute()}, call {@link #shutdown()} if the solver is driven otherwise.
+     */
+    @Override
+    protected void initializeSwarm() {
+        startRun(optModel.getMaxIter(), optModel.getTolFitness());
+        runAll(island -> {
+            island.initializeSwarm();
+            return island.isTerminated();
+        });
+        updateGBest();
+    }
+
+    @Override
+    public void execute() {
+        try {
+            initializeSwarm();
+            while (!isTerminated()) {
+                long evaluationsBefore = evaluations;
+                double previous = gBest;
+                boolean allTerminated = runAll(island -> island.run(migrationInterval));
+                migrate();
+                updateGBest();
+                if (allTerminated && !isTerminated())
+                    terminationReason = islands[0].getTerminationReason();
+                if (monitored) {
+                    if (gBest < previous)
+                        fireImprovement(previous);
+                    fireIterationEnd(evaluations - evaluationsBefore);
+                }
+            }
+        } finally {
+            shutdown();
+        }
+        fireTermination();
+
+        if (isGBestfeasible) {
+            logger.info("Solution found by " + islands.length + " islands, best fitness value: " + gBest);
+        } else {
+            logger.warning("Solution not found");
+        }
+    }
+
+    /**
+     * Run the action on every island in parallel and wait for all of them.
+     *
+     * @return whether the action returns {@code true} on every island
+     */
+    private boolean runAll(Predicate<HybridPSO> action) {
+        if (service == null) {
+            service = Executors.newFixedThreadPool(islands.length, r -> {
+                Thread thread = new Thread(r, "pso-island");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        List<Callable<Boolean>> tasks = new ArrayList<>(islands.length);
+        for (HybridPSO island : islands) {
+            tasks.add(() -> action.test(island));
+        }
+        boolean all = true;
+        try {
+            for (Future<Boolean> future : service.invokeAll(tasks)) {
+                all &= future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The island solver was interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+        return all;
+    }
+
+    /**
+     * Stop the threads of the islands, they are started again by the next run.
+     */
+    protected void shutdown() {
+        if (service != null) {
+            service.shutdownNow();
+            service = null;
+        }
+    }
+
+    /**
+     * Snapshot the gBest of every island first, then deliver the migrants along the topology.
+     */
+    private void migrate() {
+        int islandCount = islands.length;
+        if (islandCount < 2)
+            return;
+        for (int k = 0; k < islandCount; k++) {
+            HybridPSO island = islands[k];
+            System.arraycopy(island.swarm.getgBestPosition(), 0, migrants[k], 0, migrants[k].length);
+            migrantFitness[k] = island.getgBest();
+            migrantViolation[k] = island.getgBestViolation();
+        }
+        for (int k = 0; k < islandCount; k++) {
+            if (topology == MigrationTopology.RING) {
+                int target = (k + 1) % islandCount;
+                islands[target].immigrate(migrants[k], migrantFitness[k], migrantViolation[k]);
+            } else {
+                for (int target = 0; target < islandCount; target++) {
+                    if (target != k)
+                        islands[target].immigrate(migrants[k], migrantFitness[k], migrantViolation[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Collect gBest, the iteration times and the evaluations from the islands.
+     */
+    private void updateGBest() {
+        int best = 0;
+        iterNum = 0;
+        evaluations = 0;
+        epsilon = islands[0].epsilon;
+        for (int k = 0; k < islands.length; k++) {
+            HybridPSO island = islands[k];
+            iterNum = Math.max(iterNum, island.getIterNum());
+            evaluations += island.getEvaluations();
+            if (island.isGBestfeasible())
+                isGBestfeasible = true;
+            if (isBetter(island.getgBest(), island.getgBestViolation(), islands[best].getgBest(), islands[best].getgBestViolation()))
+                best = k;
+        }
+        gBest = islands[best].getgBest();
+        gBestViolation = islands[best].getgBestViolation();
+        System.arraycopy(islands[best].swarm.getgBestPosition(), 0, gBestLocation.getLoc(), 0, gBestLocation.getLoc().length);
+    }
+
+    /**
+     * @return the largest diameter of the islands, each measured to the gBest of its own island
+     */
+    @Override
+    public double getSwarmDiameter() {
+        double diameter = 0;
+        for (HybridPSO island : islands) {
+            diameter = Math.max(diameter, island.getSwarmDiameter());
+        }
+        return diameter;
+    }
+
+    /**
+     * @return the mean diversity of the islands
+     */
+    @Override
+    public double getSwarmDiversity() {
+        double diversity = 0;
+        for (HybridPSO island : islands) {
+            diversity += island.getSwarmDiversity();
+        }
+        return diversity / islands.length;
+    }
+
+    @Override
+    public double getFeasibleRatio() {
+        double ratio = 0;
+        for (HybridPSO island : islands) {
+            ratio += island.getFeasibleRatio();
+        }
+        return ratio / islands.length;
+    }
+
+    /**
+     * Seed the islands, each island gets its own seed derived from this one.
+     */
+    @Override
+    public void setSeed(long seed) {
+        super.setSeed(seed);
+        for (HybridPSO island : islands) {
+            island.setSeed(generator.nextLong());
+        }
+    }
+
+    /**
+     * Specify how the particles of every island are ranked, the handler is shared by the islands.
+     */
+    @Override
+    public void setConstraintHandler(ConstraintHandler constraintHandler) {
+        super.setConstraintHandler(constraintHandler);
+        for (HybridPSO island : islands) {
+            island.setConstraintHandler(constraintHandler);
+        }
+    }
+
+    /**
+     * Restart part of every island when it collapses, see {@link AbstractPSO#setRestart(double, double)}.
+     */
+    @Override
+    public void setRestart(double threshold, double fraction) {
+        super.setRestart(threshold, fraction);
+        for (HybridPSO island : islands) {
+            island.setRestart(threshold, fraction);
+        }
+    }
+
+    /**
+     * @return the number of restarts of all the islands
+     */
+    @Override
+    public int getRestarts() {
+        int count = 0;
+        for (HybridPSO island : islands) {
+            count += island.getRestarts();
+        }
+        return count;
+    }
+
+    /**
+     * Specify how the parameters of every island change during a run, see
+     * {@link AbstractPSO#setParameterController(ParameterController)}. A controller keeps the state
+     * of one swarm, so the factory is called once per island.
+     *
+     * @param factory the factory of the controllers, e.g. {@code ParameterControllers::successRateInertia}
+     */
+    public void setParameterController(Supplier<ParameterController> factory) {
+        for (HybridPSO island : islands) {
+            island.setParameterController(factory.get());
+        }
+    }
+
+    /**
+     * Specify how the fitness of every island is evaluated, the default is sequential
+     * since each island already has its own thread.
+     */
+    @Override
+    public void setEvaluationExecutor(EvaluationExecutor evaluationExecutor) {
+        super.setEvaluationExecutor(evaluationExecutor);
+        for (HybridPSO island : islands) {
+            island.setEvaluationExecutor(evaluationExecutor);
+        }
+    }
+
+    /**
+     * @return the islands, each is a {@link HybridPSO}
+     */
+    public HybridPSO[] getIslands() {
+        return islands;
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.garrybest.pso;
+
+import com.garrybest.pso.SolverMetrics.Phase;
+
+import javax.management.JMException;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Publishes the metrics of a solver as an MXBean on the platform MBean server,
+ * under {@code com.garrybest.pso:type=Solver,name=<name>}. Close it to unregister the bean.
+ */
+public class JmxSolverListener implements SolverListener, SolverMXBean, AutoCloseable {
+
+    private final ObjectName objectName;
+    private final AtomicLongArray phaseNanos = new AtomicLongArray(Phase.values().length);
+    private volatile int iteration;
+    private volatile double gBest;
+    private volatile long evaluations;
+    private volatile double feasibleRatio;
+    private volatile double diversity;
+    private volatile TerminationReason terminationReason;
+    private volatile boolean running;
+
+    /**
+     * Register the bean.
+     *
+     * @param name the name of the solver
+     */
+    public JmxSolverListener(String name) {
+        try {
+            this.objectName = new ObjectName("com.garrybest.pso:type=Solver,name=" + ObjectName.quote(name));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Invalid solver name: " + name, e);
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register " + objectName, e);
+        }
+    }
+
+    @Override
+    public void onIterationEnd(AbstractPSO solver, SolverMetrics metrics) {
+        running = true;
+        terminationReason = null;
+        iteration = metrics.getIteration();
+        gBest = metrics.getgBest();
+        evaluations = metrics.getTotalEvaluations();
+        feasibleRatio = metrics.getFeasibleRatio();
+        diversity = metrics.getDiversity();
+        for (Phase phase : Phase.values()) {
+            phaseNanos.set(phase.ordinal(), metrics.getTotalPhaseNanos(phase));
+        }
+    }
+
+    @Override
+    public void onTermination(AbstractPSO solver, TerminationReason reason) {
+        running = false;
+        terminationReason = reason;
+        iteration = solver.getIterNum();
+        gBest = solver.getgBest();
+        evaluations = solver.getEvaluations();
+    }
+
+    @Override
+    public int getIteration() {
+        return iteration;
+    }
+
+    @Override
+    public double getGBest() {
+        return gBest;
+    }
+
+    @Override
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    @Override
+    public double getFeasibleRatio() {
+        return feasibleRatio;
+    }
+
+    @Override
+    public double getDiversity() {
+        return diversity;
+    }
+
+    @Override
+    public Map<String, Long> getPhaseNanos() {
+        Map<String, Long> nanos = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            nanos.put(phase.name(), phaseNanos.get(phase.ordinal()));
+        }
+        return nanos;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public String getTerminationReason() {
+        TerminationReason reason = terminationReason;
+        return reason == null ? null : reason.name();
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    /**
+     * Unregister the bean.
+     */
+    @Override
+    public void close() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to unregister " + objectName, e);
+        }
+    }
+}
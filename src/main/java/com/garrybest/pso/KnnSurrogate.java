@@ -0,0 +1,109 @@
+package com.garrybest.pso;
+
+/**
+ * A {@link Surrogate} that predicts the inverse distance weighted mean of the fitness of the {@code k}
+ * nearest samples. The latest {@code capacity} samples are kept in a ring buffer, so learning a sample
+ * costs {@code O(n)} and the surrogate follows the swarm as it moves. A prediction scans every sample,
+ * which is negligible next to a model that takes seconds per evaluation.
+ */
+public class KnnSurrogate implements Surrogate {
+
+    private final int dimension;
+    private final int capacity;
+    private final int k;
+    private final double[] samples;
+    private final double[] values;
+    private final int[] nearest;
+    private final double[] distances;
+    private int size;
+    private int next;
+
+    /**
+     * Constructs a surrogate of the latest 1000 samples with 5 neighbors.
+     *
+     * @param dimension the dimension of the locations
+     */
+    public KnnSurrogate(int dimension) {
+        this(dimension, 1000, 5);
+    }
+
+    /**
+     * @param dimension the dimension of the locations
+     * @param capacity  the number of samples kept
+     * @param k         the number of neighbors of a prediction
+     */
+    public KnnSurrogate(int dimension, int capacity, int k) {
+        if (k <= 0 || capacity < k)
+            throw new IllegalArgumentException("Invalid number of neighbors " + k + " for capacity " + capacity);
+        this.dimension = dimension;
+        this.capacity = capacity;
+        this.k = k;
+        this.samples = new double[capacity * dimension];
+        this.values = new double[capacity];
+        this.nearest = new int[k];
+        this.distances = new double[k];
+    }
+
+    @Override
+    public boolean isReady() {
+        return size >= k;
+    }
+
+    @Override
+    public double predict(double[] positions, int offset) {
+        int found = 0;
+        for (int s = 0; s < size; s++) {
+            int base = s * dimension;
+            double distance = 0;
+            for (int j = 0; j < dimension; j++) {
+                double d = samples[base + j] - positions[offset + j];
+                distance += d * d;
+            }
+            if (distance == 0)
+                return values[s];
+            if (found == k && distance >= distances[k - 1])
+                continue;
+
+            // insert into the sorted list of the nearest samples
+            int i = found < k ? found++ : k - 1;
+            while (i > 0 && distances[i - 1] > distance) {
+                distances[i] = distances[i - 1];
+                nearest[i] = nearest[i - 1];
+                i--;
+            }
+            distances[i] = distance;
+            nearest[i] = s;
+        }
+
+        double weightedSum = 0;
+        double weights = 0;
+        for (int i = 0; i < found; i++) {
+            double weight = distances[0] / distances[i]; // relative to the nearest, so that it cannot overflow
+            weightedSum += weight * values[nearest[i]];
+            weights += weight;
+        }
+        return weightedSum / weights;
+    }
+
+    @Override
+    public void add(double[] positions, int offset, double fitness) {
+        System.arraycopy(positions, offset, samples, next * dimension, dimension);
+        values[next] = fitness;
+        next = (next + 1) % capacity;
+        if (size < capacity)
+            size++;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        next = 0;
+    }
+
+    /**
+     * @return the number of samples kept
+     */
+    public int size() {
+        return size;
+    }
+}
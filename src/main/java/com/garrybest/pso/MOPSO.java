@@ -0,0 +1,319 @@
+package com.garrybest.pso;
+
+import com.garrybest.pso.SolverMetrics.Phase;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Multi-objective PSO of Coello Coello et al. with the crowding distance of MOPSO-CD.
+ * The non-dominated solutions found so far are kept in a bounded {@link ParetoArchive}, every particle
+ * follows its pBest and a leader selected from the archive, and gaussian mutation keeps the swarm exploring.
+ * A pBest is replaced when the new location dominates it, and with probability 0.5 when neither dominates.
+ * <p>
+ * The result is the archive, see {@link #getArchive()}. There is no single gBest, so {@link #getgBest()}
+ * is {@code NaN}, {@link #solve()} and {@link StoppingCriteria#relativeImprovement(double, int)} are rejected,
+ * and the ranking always follows the feasibility rules of {@link ParetoArchive}. A solution inserted into the
+ * archive is an improvement, see {@link #getImprovements()}, and the diameter of the swarm is measured from its centroid.
+ * The inertia weight, the acceleration coefficients and the mutation probability come from the
+ * {@link ParameterController}.
+ */
+public class MOPSO extends AbstractPSO implements PSOConstants {
+
+    private static Logger logger = Logger.getLogger(MOPSO.class.getName());
+
+    /**
+     * The default capacity of the archive.
+     */
+    public static final int ARCHIVE_CAPACITY = 100;
+
+    private final MultiObjectiveModel optModel;
+    private final int objectiveCount;
+    private final ParetoArchive archive;
+    private final double[] objectives;
+    private final double[] pBestObjectives;
+    private final double[] violation;
+    private final boolean[] feasible;
+    private final double[][] buffers;
+    private final double[] mutationCoeff;
+    private final IntConsumer task = this::evaluate;
+    private double[] minLoc;
+    private double[] maxLoc;
+    private double[] minVel;
+    private double[] maxVel;
+
+    /**
+     * Constructs a multi-objective solver, the default size of swarm is {@code 10 + 2 * sqrt(n)}
+     * and the archive keeps at most {@link #ARCHIVE_CAPACITY} solutions.
+     *
+     * @param optModel the model of the problem you want to solve
+     */
+    public MOPSO(MultiObjectiveModel optModel) {
+        this(optModel, (int) (10 + 2 * Math.sqrt(optModel.getDimentions())), ARCHIVE_CAPACITY);
+    }
+
+    /**
+     * Constructs a multi-objective solver with a specified swarm size and archive capacity.
+     *
+     * @param optModel        the model of the problem you want to solve
+     * @param swarmSize       the size of the PSO swarm
+     * @param archiveCapacity the maximum number of non-dominated solutions kept
+     */
+    public MOPSO(MultiObjectiveModel optModel, int swarmSize, int archiveCapacity) {
+        super(swarmSize);
+        this.optModel = optModel;
+        this.objectiveCount = optModel.getObjectives();
+        int n = optModel.getDimentions();
+        this.swarm = new SwarmStore(swarmSize, n);
+        this.archive = new ParetoArchive(archiveCapacity, n, objectiveCount);
+        this.objectives = new double[swarmSize * objectiveCount];
+        this.pBestObjectives = new double[swarmSize * objectiveCount];
+        this.violation = new double[swarmSize];
+        this.feasible = new boolean[swarmSize];
+        this.buffers = new double[swarmSize][objectiveCount];
+        this.mutationCoeff = new double[n];
+    }
+
+    @Override
+    protected void initializeSwarm() {
+        int n = optModel.getDimentions();
+        minLoc = optModel.getMinLoc();
+        maxLoc = optModel.getMaxLoc();
+        minVel = optModel.getMinVel();
+        maxVel = optModel.getMaxVel();
+        startRun(optModel.getMaxIter(), Double.NEGATIVE_INFINITY);
+        gBest = Double.NaN;
+        archive.clear();
+        double[] x = swarm.getPositions();
+        double[] v = swarm.getVelocities();
+
+        for (int i = 0; i < swarmSize; i++) {
+            int offset = swarm.offset(i);
+            RandomSource random = particleGenerators[i];
+            for (int j = 0; j < n; j++) {
+                x[offset + j] = minLoc[j] + random.nextDouble() * (maxLoc[j] - minLoc[j]);
+                v[offset + j] = minVel[j] + random.nextDouble() * (maxVel[j] - minVel[j]);
+            }
+        }
+
+        evaluationExecutor.forEach(swarmSize, task);
+        evaluations += swarmSize;
+        System.arraycopy(objectives, 0, pBestObjectives, 0, objectives.length);
+        System.arraycopy(violation, 0, pBestViolation, 0, swarmSize);
+        for (int i = 0; i < swarmSize; i++) {
+            swarm.savePBest(i);
+            if (feasible[i])
+                isGBestfeasible = true;
+            archive.add(x, swarm.offset(i), objectives, i * objectiveCount, violation[i]);
+        }
+        archive.prune();
+    }
+
+    @Override
+    public void execute() {
+        initializeSwarm();
+        run(maxIter);
+        fireTermination();
+
+        if (isGBestfeasible) {
+            logger.info("Pareto front of " + archive.size() + " solutions found at iteration " + iterNum);
+        } else {
+            logger.warning("Solution not found");
+        }
+    }
+
+    /**
+     * Run at most {@code iterations} more iterations on the initialized swarm,
+     * it stops early once the solver is terminated.
+     *
+     * @param iterations the maximum number of iterations to run
+     * @return whether the solver is terminated
+     */
+    protected boolean run(int iterations) {
+        for (int k = 0; k < iterations && !isTerminated(); k++) {
+            long evaluationsBefore = evaluations;
+            iterate();
+
+            if (logger.isLoggable(Level.FINE))
+                logger.fine("ITERATION " + iterNum + ": Archive: " + archive.size() + "  " + isGBestfeasible);
+            iterNum++;
+            if (monitored)
+                fireIterationEnd(evaluations - evaluationsBefore);
+        }
+        return isTerminated();
+    }
+
+    /**
+     * Run a single iteration on the initialized swarm.
+     */
+    protected void iterate() {
+        parameterController.update(this);
+        long mark = startPhase();
+        updateVelocityAndLocation(parameterController.getInertia());
+        mark = endPhase(Phase.VELOCITY_UPDATE, mark);
+        mutate(parameterController.getMutationProbability());
+        mark = endPhase(Phase.MUTATION, mark);
+        evaluationExecutor.forEach(swarmSize, task);
+        evaluations += swarmSize;
+        mark = endPhase(Phase.EVALUATION, mark);
+        updateBest();
+        endPhase(Phase.BEST_UPDATE, mark);
+    }
+
+    /**
+     * Move every particle towards its pBest and a leader selected from the archive.
+     *
+     * @param w the inertia weight
+     */
+    protected void updateVelocityAndLocation(double w) {
+        double c1 = parameterController.getCognitive();
+        double c2 = parameterController.getSocial();
+        int n = swarm.getDimension();
+        double[] leaders = archive.getPositions();
+
+        for (int i = 0; i < swarmSize; i++) {
+            RandomSource random = particleGenerators[i];
+            double r1 = random.nextDouble() * c1;
+            double r2 = random.nextDouble() * c2;
+            int leader = archive.selectLeader(random);
+            PSOUtil.moveParticle(swarm.getPositions(), swarm.getVelocities(), swarm.getpBestPositions(), leaders,
+                    leader * n, swarm.offset(i), n, w, r1, r2, minVel, maxVel, minLoc, maxLoc);
+        }
+    }
+
+    /**
+     * Apply gaussian mutation to random particles, like {@link HybridPSO#mutate(double)}.
+     *
+     * @param mutationProbability the fraction of the swarm to mutate
+     */
+    protected void mutate(double mutationProbability) {
+        int n = swarm.getDimension();
+        double[] x = swarm.getPositions();
+
+        int mutationPoolSize = (int) (swarmSize * mutationProbability);
+        PSOUtil.samplePool(generator, swarmSize, mutationPoolSize, pool);
+        for (int i = 0; i < n; i++) {
+            mutationCoeff[i] = generator.nextGaussian() * (maxLoc[i] - minLoc[i]) * 0.1;
+        }
+        for (int k = 0; k < mutationPoolSize; k++) {
+            int offset = swarm.offset(pool[k]);
+            for (int i = 0; i < n; i++) {
+                x[offset + i] = PSOUtil.restrictByBoundary(x[offset + i] + mutationCoeff[i], maxLoc[i], minLoc[i]);
+            }
+        }
+    }
+
+    /**
+     * Update pBest and the archive from the evaluated objectives.
+     */
+    protected void updateBest() {
+        int successes = 0;
+        long inserted = improvements;
+        double[] x = swarm.getPositions();
+        for (int i = 0; i < swarmSize; i++) {
+            if (feasible[i])
+                isGBestfeasible = true;
+
+            int dominance = dominance(objectives, violation[i], pBestObjectives, pBestViolation[i], i * objectiveCount);
+            if (dominance > 0 || dominance == 0 && particleGenerators[i].nextDouble() < 0.5) {
+                System.arraycopy(objectives, i * objectiveCount, pBestObjectives, i * objectiveCount, objectiveCount);
+                pBestViolation[i] = violation[i];
+                swarm.savePBest(i);
+                successes++;
+            }
+            if (archive.add(x, swarm.offset(i), objectives, i * objectiveCount, violation[i]))
+                improvements++;
+        }
+        archive.prune();
+        if (improvements > inserted && monitored)
+            fireImprovement(gBest);
+        parameterController.onIterationEnd(this, successes);
+    }
+
+    /**
+     * @return 1 if the first solution dominates the second, -1 if the second dominates or equals the first, otherwise 0
+     */
+    private int dominance(double[] values1, double violation1, double[] values2, double violation2, int offset) {
+        if (violation1 > 0 || violation2 > 0)
+            return violation1 < violation2 ? 1 : -1;
+        boolean better = false;
+        boolean worse = false;
+        for (int j = offset; j < offset + objectiveCount; j++) {
+            if (values1[j] < values2[j])
+                better = true;
+            else if (values1[j] > values2[j])
+                worse = true;
+        }
+        return better && worse ? 0 : better ? 1 : -1;
+    }
+
+    /**
+     * Evaluate a single particle, the objectives are only evaluated if it satisfies the constraints.
+     */
+    private void evaluate(int i) {
+        Location location = swarm.location(i);
+        location.setConstrViolation(null);
+        double v = optModel.evalConstr(location);
+        double[] constrViolation = location.getConstrViolation();
+        if (constrViolation != null)
+            v = PSOUtil.getViolation(constrViolation);
+        violation[i] = v;
+        feasible[i] = v <= 0;
+
+        double[] buffer = buffers[i];
+        if (feasible[i])
+            optModel.evalObjectives(location, buffer);
+        else
+            Arrays.fill(buffer, Double.NaN);
+        System.arraycopy(buffer, 0, objectives, i * objectiveCount, objectiveCount);
+    }
+
+    /**
+     * @return the archive of the non-dominated solutions found in the current run
+     */
+    public ParetoArchive getArchive() {
+        return archive;
+    }
+
+    /**
+     * There is no gBest position, so the diameter is the largest distance between a particle and the centroid of the swarm.
+     */
+    @Override
+    public double getSwarmDiameter() {
+        return swarm.getCentroidDiameter();
+    }
+
+    /**
+     * There is no single best solution to report, run {@link #execute()} and read {@link #getArchive()} instead.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public SolveResult solve() {
+        throw new UnsupportedOperationException("MOPSO has no single best solution, read the archive after execute()");
+    }
+
+    /**
+     * The criteria that compare gBest over a window are rejected, there is no gBest to compare.
+     *
+     * @throws IllegalArgumentException if it is {@link StoppingCriteria#relativeImprovement(double, int)}
+     */
+    @Override
+    public void addStoppingCriterion(StoppingCriterion criterion) {
+        if (criterion.getReason() == TerminationReason.RELATIVE_IMPROVEMENT)
+            throw new IllegalArgumentException("MOPSO has no gBest to compare, use noImprovement instead");
+        super.addStoppingCriterion(criterion);
+    }
+
+    @Override
+    public double getFeasibleRatio() {
+        return PSOUtil.getFeasibleRatio(feasible);
+    }
+
+    @Override
+    public void setParameterController(ParameterController parameterController) {
+        super.setParameterController(parameterController);
+    }
+}
@@ -0,0 +1,15 @@
+package com.garrybest.pso;
+
+/**
+ * How the islands of {@link IslandPSO} exchange their best particles.
+ */
+public enum MigrationTopology {
+    /**
+     * Island {@code i} sends its best particle to island {@code (i + 1) % K}.
+     */
+    RING,
+    /**
+     * Every island sends its best particle to all the other islands.
+     */
+    FULLY_CONNECTED
+}
@@ -0,0 +1,23 @@
+package com.garrybest.pso;
+
+/**
+ * This interface defines an optimization model with several objectives to minimize together, for {@link MOPSO}.
+ * The boundaries, the dimension, the maximum iteration times and the constraints are given by {@link BaseModel}.
+ */
+public interface MultiObjectiveModel extends BaseModel {
+
+    /**
+     * @return the number of objectives
+     */
+    int getObjectives();
+
+    /**
+     * Evaluate every objective function value based on the current location.
+     * It is only called when the location satisfies the constraints.
+     *
+     * @param location the location of a particle
+     * @param out      output, the value of each objective, its length is {@link #getObjectives()}
+     */
+    void evalObjectives(Location location, double[] out);
+
+}
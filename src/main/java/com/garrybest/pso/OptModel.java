@@ -2,13 +2,14 @@ package com.garrybest.pso;
 
 /**
  * This interface defines the optimization model.
- * Please implement this interface according to your own problem.
+ * Please implement this interface according to your own problem,
+ * the boundaries, the dimension and the constraints are given by {@link BaseModel}.
  *
  * @Author: Fang Rui
  * @Date: 2018/6/7
  * @Time: 22:30
  */
-public interface OptModel {
+public interface OptModel extends BaseModel {
 
 
     /**
@@ -20,68 +21,20 @@ public interface OptModel {
     double evalObj(Location location);
 
     /**
-     * Calculate the constraint function value based on the current location,
-     * where the equality constraint is treated as an inequality constraint.
-     * If your model has no constraint, there is no need to implement this method.
+     * Evaluate the objective function value and the constraint function value in one pass.
+     * Override this method if both share expensive intermediates, the solvers always call it.
+     * The objective function value is only used when the location is feasible, so there is
+     * no need to evaluate it when the constraint function value is positive.
+     * By default, it calls {@link #evalConstr(Location)} and then {@link #evalObj(Location)}
+     * if the location is feasible.
      *
      * @param location the location of a particle
-     * @return the constraint function value
+     * @param result   output, the holder of the two values
      */
-    default double evalConstr(Location location) {
-        return 0;
-    }
-
-    /**
-     * Specify the lower boundary of the location, please give
-     * the minimum of the location by returning an array.
-     *
-     * @return the lower boundary of the location
-     */
-    default double[] getMinLoc() {
-        return new double[0];
-    }
-
-    /**
-     * Specify the upper boundary of the location, please give
-     * the maximum of the location by returning an array.
-     *
-     * @return the upper boundary of the location
-     */
-    default double[] getMaxLoc() {
-        return new double[0];
-    }
-
-    /**
-     * Specify the lower boundary of the velocity, please give
-     * the minimum of the velocity by returning an array.
-     *
-     * @return the lower boundary of the velocity
-     */
-    default double[] getMinVel() {
-        return new double[0];
-    }
-
-    /**
-     * Specify the upper boundary of the velocity, please give
-     * the maximum of the velocity by returning an array.
-     *
-     * @return the upper boundary of the velocity
-     */
-    default double[] getMaxVel() {
-        return new double[0];
-    }
-
-
-    /**
-     * @return the dimension of the state variable
-     */
-    int getDimentions();
-
-    /**
-     * @return maximum iteration times，the default value if {@code 1000}
-     */
-    default int getMaxIter() {
-        return 1000;
+    default void evalObjAndConstr(Location location, EvalResult result) {
+        double violation = evalConstr(location);
+        result.setViolation(violation);
+        result.setObjective(violation > 0 ? Double.NaN : evalObj(location));
     }
 
     /**
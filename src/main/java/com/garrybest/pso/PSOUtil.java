@@ -64,6 +64,18 @@ public class PSOUtil implements PSOConstants {
         return isFeasible;
     }
 
+    /**
+     * Calculate the total violation of the constraints, the sum of the positive values.
+     */
+    public static double getViolation(double[] constrValueList) {
+        double violation = 0;
+        for (double aConstrValue : constrValueList) {
+            if (aConstrValue > 0)
+                violation += aConstrValue;
+        }
+        return violation;
+    }
+
     public static double restrictByBoundary(double val, double upper, double lower) {
         if (val < lower)
             return lower;
@@ -73,6 +85,42 @@ public class PSOUtil implements PSOConstants {
             return val;
     }
 
+    /**
+     * Move a particle stored in flat arrays, the velocity and the location are clamped to their boundaries.
+     * Every element is independent and the clamps are branch-free selects instead of the branches of
+     * {@link #restrictByBoundary(double, double, double)}, see {@code KernelBenchmark}.
+     *
+     * @param x            the positions of the swarm
+     * @param v            the velocities of the swarm
+     * @param pBestX       the pBest positions of the swarm
+     * @param socialX      the attractor of the social term, the gBest position or the pBest positions
+     *                     when the particle follows the lbest of its {@link Topology}
+     * @param socialOffset the offset of the attractor in {@code socialX}
+     * @param offset       the offset of the particle in {@code x}, {@code v} and {@code pBestX}
+     * @param n            the dimension
+     * @param w            the inertia weight
+     * @param c1           the cognitive coefficient, already multiplied by its random factor
+     * @param c2           the social coefficient, already multiplied by its random factor
+     * @param minVel       the lower boundary of the velocity
+     * @param maxVel       the upper boundary of the velocity
+     * @param minLoc       the lower boundary of the location
+     * @param maxLoc       the upper boundary of the location
+     */
+    public static void moveParticle(double[] x, double[] v, double[] pBestX, double[] socialX, int socialOffset, int offset, int n,
+                                    double w, double c1, double c2,
+                                    double[] minVel, double[] maxVel, double[] minLoc, double[] maxLoc) {
+        for (int j = 0; j < n; j++) {
+            double previousLoc = x[offset + j];
+            double vel = w * v[offset + j] + c1 * (pBestX[offset + j] - previousLoc) + c2 * (socialX[socialOffset + j] - previousLoc);
+            vel = vel < minVel[j] ? minVel[j] : vel;
+            vel = vel > maxVel[j] ? maxVel[j] : vel;
+            double loc = previousLoc + vel;
+            loc = loc < minLoc[j] ? minLoc[j] : loc;
+            x[offset + j] = loc > maxLoc[j] ? maxLoc[j] : loc;
+            v[offset + j] = vel;
+        }
+    }
+
     /**
      * Restrict the val to the middle point.
      */
@@ -97,6 +145,58 @@ public class PSOUtil implements PSOConstants {
         return norm;
     }
 
+    /**
+     * Calculate the norm of a vector stored in {@code vector[offset, offset + length)}.
+     */
+    public static double getVecNorm(double[] vector, int offset, int length) {
+        double norm = 0;
+        for (int i = offset; i < offset + length; i++) {
+            norm += vector[i] * vector[i];
+        }
+        return Math.sqrt(norm);
+    }
+
+    /**
+     * Draw {@code k} distinct indices from {@code [0, n)} into {@code pool[0, k)} by a partial
+     * Fisher-Yates shuffle, they come in random order so that adjacent entries form random pairs.
+     * The pool stays a permutation of {@code [0, n)}, so it is reused by the next draw without
+     * being reset: a draw costs {@code O(k)} and allocates nothing.
+     *
+     * @param random the random generator
+     * @param n      the size of the population
+     * @param k      the size of the sample
+     * @param pool   a permutation of {@code [0, n)}, e.g. from {@link #resetPool(int[])}
+     */
+    public static void samplePool(RandomSource random, int n, int k, int[] pool) {
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(n - i);
+            int temp = pool[i];
+            pool[i] = pool[j];
+            pool[j] = temp;
+        }
+    }
+
+    /**
+     * Fill the pool of {@link #samplePool(RandomSource, int, int, int[])} with the identity permutation.
+     */
+    public static void resetPool(int[] pool) {
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = i;
+        }
+    }
+
+    /**
+     * @return the fraction of {@code true} in the list
+     */
+    public static double getFeasibleRatio(boolean[] feasibleList) {
+        int count = 0;
+        for (boolean feasible : feasibleList) {
+            if (feasible)
+                count++;
+        }
+        return (double) count / feasibleList.length;
+    }
+
     public static double randomBool(double random) {
         return random < 0.5 ? 0 : 1;
     }
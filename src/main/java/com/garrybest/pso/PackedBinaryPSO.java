@@ -0,0 +1,434 @@
+package com.garrybest.pso;
+
+import com.garrybest.pso.SolverMetrics.Phase;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Binary PSO storing the locations as packed bits, for problems with a large number of
+ * binary variables. Each location takes one bit per dimension instead of a {@code double},
+ * and the velocities are kept as {@code float}.
+ * <p>
+ * The velocity update is the same as {@link BinaryPSO}. The hybridization is a uniform
+ * crossover done a word at a time, and the pBest and gBest are copied as words.
+ */
+public class PackedBinaryPSO extends AbstractPSO implements PSOConstants {
+
+    private static Logger logger = Logger.getLogger(PackedBinaryPSO.class.getName());
+
+    private BitOptModel optModel;
+    private int n;
+    private int words;
+    private long[] positions;
+    private long[] pBestPositions;
+    private long[] gBestPosition;
+    private float[] velocities;
+    private BitLocation[] views;
+    private double[] fitness;
+    private boolean[] feasible;
+    private double[] violation;
+    private EvalResult[] results;
+    private int[] pending;
+    private int[] bitCounts;
+    private EvalCache evalCache;
+    private final IntConsumer task = this::evaluate;
+    private final IntConsumer pendingTask = k -> evaluate(this.pending[k]);
+
+    public PackedBinaryPSO(BitOptModel optModel) {
+        this(optModel, (int) (10 + 2 * Math.sqrt(optModel.getDimentions())));
+    }
+
+    public PackedBinaryPSO(BitOptModel optModel, int swarmSize) {
+        super(swarmSize);
+        this.optModel = optModel;
+        allocate();
+    }
+
+    public PackedBinaryPSO(BitOptModel optModel, double[] initVariableState) {
+        this(optModel, (int) (10 + 2 * Math.sqrt(optModel.getDimentions())), initVariableState);
+    }
+
+    public PackedBinaryPSO(BitOptModel optModel, int swarmSize, double[] initVariableState) {
+        super(swarmSize, initVariableState);
+        this.optModel = optModel;
+        allocate();
+    }
+
+    private void allocate() {
+        this.n = optModel.getDimentions();
+        this.words = EvalCache.wordCount(n);
+        this.positions = new long[swarmSize * words];
+        this.pBestPositions = new long[swarmSize * words];
+        this.gBestPosition = new long[words];
+        this.velocities = new float[swarmSize * n];
+        this.views = new BitLocation[swarmSize];
+        this.fitness = new double[swarmSize];
+        this.feasible = new boolean[swarmSize];
+        this.violation = new double[swarmSize];
+        this.results = new EvalResult[swarmSize];
+        for (int i = 0; i < swarmSize; i++) {
+            views[i] = new BitLocation(positions, i * words, n);
+            results[i] = new EvalResult();
+        }
+        this.pending = new int[swarmSize];
+        this.bitCounts = new int[n];
+        this.searchDiagonal = Math.sqrt(n);
+    }
+
+    @Override
+    protected void initializeSwarm() {
+        startRun(optModel.getMaxIter(), optModel.getTolFitness());
+        long tailMask = tailMask();
+
+        for (int i = 0; i < swarmSize; i++) {
+            int offset = i * words;
+            if (isWarmStart) {
+                Arrays.fill(positions, offset, offset + words, 0);
+                for (int j = 0; j < n; j++) {
+                    if (initVariableState[j] != 0)
+                        positions[offset + (j >>> 6)] |= 1L << j;
+                }
+            } else {
+                for (int w = 0; w < words; w++) {
+                    positions[offset + w] = particleGenerators[i].nextLong();
+                }
+                positions[offset + words - 1] &= tailMask;
+            }
+        }
+        Arrays.fill(velocities, 0);
+
+        resetEpsilon();
+        evaluations += evaluateSwarm();
+        calibrateEpsilon(fitness, violation);
+        for (int i = 0; i < swarmSize; i++) {
+            if (feasible[i])
+                isGBestfeasible = true;
+            pBest[i] = fitness[i];
+            pBestViolation[i] = violation[i];
+        }
+        System.arraycopy(positions, 0, pBestPositions, 0, positions.length);
+
+        int bestParticleIndex = getBestPos(fitness, violation);
+        gBest = fitness[bestParticleIndex];
+        gBestViolation = violation[bestParticleIndex];
+        System.arraycopy(positions, bestParticleIndex * words, gBestPosition, 0, words);
+    }
+
+    @Override
+    public void execute() {
+        initializeSwarm();
+        run(maxIter);
+        fireTermination();
+
+        if (isGBestfeasible) {
+            logger.info("Solution found at iteration " + iterNum + ", best fitness value: " + gBest);
+        } else {
+            logger.warning("Solution not found");
+        }
+    }
+
+    /**
+     * Run at most {@code iterations} more iterations on the initialized swarm,
+     * it stops early once the solver is terminated.
+     *
+     * @param iterations the maximum number of iterations to run
+     * @return whether the solver is terminated
+     */
+    protected boolean run(int iterations) {
+        for (int k = 0; k < iterations && !isTerminated(); k++) {
+            long evaluationsBefore = evaluations;
+            iterate();
+
+            if (logger.isLoggable(Level.FINE))
+                logger.fine("ITERATION " + iterNum + ": Value: " + gBest + "  " + isGBestfeasible);
+            iterNum++;
+            if (monitored)
+                fireIterationEnd(evaluations - evaluationsBefore);
+        }
+        return isTerminated();
+    }
+
+    /**
+     * Run a single iteration on the initialized swarm.
+     */
+    protected void iterate() {
+        parameterController.update(this);
+        updateEpsilon();
+        long mark = startPhase();
+        updateVelocityAndLocation(parameterController.getInertia());
+        mark = endPhase(Phase.VELOCITY_UPDATE, mark);
+        hybridize();
+        mark = endPhase(Phase.HYBRIDIZATION, mark);
+        evaluations += evaluateSwarm();
+        mark = endPhase(Phase.EVALUATION, mark);
+        updateBest();
+        mark = endPhase(Phase.BEST_UPDATE, mark);
+        int restartSize = getRestartSize();
+        if (restartSize > 0)
+            restart(restartSize);
+        endPhase(Phase.RESTART, mark);
+    }
+
+    /**
+     * Move every particle, the bits are sampled from the sigmoid of the velocity.
+     *
+     * @param w the inertia weight
+     */
+    protected void updateVelocityAndLocation(double w) {
+        double c1 = parameterController.getCognitive();
+        double c2 = parameterController.getSocial();
+        for (int i = 0; i < swarmSize; i++) {
+            RandomSource random = particleGenerators[i];
+            double r1 = random.nextDouble() * c1;
+            double r2 = random.nextDouble() * c2;
+            int offset = i * words;
+            int velOffset = i * n;
+
+            for (int k = 0; k < words; k++) {
+                long x = positions[offset + k];
+                long p = pBestPositions[offset + k];
+                long g = gBestPosition[k];
+                long newX = 0;
+                int end = Math.min(64, n - (k << 6));
+                for (int b = 0; b < end; b++) {
+                    int j = velOffset + (k << 6) + b;
+                    int previousLoc = (int) (x >>> b) & 1;
+                    double vel = (w * velocities[j]) +
+                            r1 * (((int) (p >>> b) & 1) - previousLoc) +
+                            r2 * (((int) (g >>> b) & 1) - previousLoc);
+                    velocities[j] = (float) vel;
+                    if (PSOUtil.sigmoid(vel, random.nextDouble()) != 0)
+                        newX |= 1L << b;
+                }
+                positions[offset + k] = newX;
+            }
+        }
+    }
+
+    /**
+     * Cross over random pairs of particles. The velocities are combined like {@link BinaryPSO},
+     * and each pair of words exchanges the bits selected by a random mask.
+     */
+    protected void hybridize() {
+        int hybridPoolSize = (int) (swarmSize * parameterController.getHybridProbability());
+        if ((hybridPoolSize & 1) == 1)
+            hybridPoolSize++;
+        hybridPoolSize = Math.min(hybridPoolSize, swarmSize & ~1);
+        PSOUtil.samplePool(generator, swarmSize, hybridPoolSize, pool);
+        for (int k = 0; k < hybridPoolSize; k += 2) {
+            int offset1 = pool[k] * words;
+            int offset2 = pool[k + 1] * words;
+            int velOffset1 = pool[k] * n;
+            int velOffset2 = pool[k + 1] * n;
+
+            double velNorm1 = 0;
+            double velNorm2 = 0;
+            double tempNorm = 0;
+            for (int i = 0; i < n; i++) {
+                double vel1 = velocities[velOffset1 + i];
+                double vel2 = velocities[velOffset2 + i];
+                velNorm1 += vel1 * vel1;
+                velNorm2 += vel2 * vel2;
+                tempNorm += (vel1 + vel2) * (vel1 + vel2);
+            }
+            tempNorm = Math.sqrt(tempNorm); // |v1 + v2|
+            if (tempNorm == 0) // v1 + v2 = 0, so are the new velocities
+                tempNorm = Double.POSITIVE_INFINITY;
+            double coefficient1 = Math.sqrt(velNorm1) / tempNorm; // |v1| / |v1 + v2|
+            double coefficient2 = Math.sqrt(velNorm2) / tempNorm; // |v2| / |v1 + v2|
+
+            for (int i = 0; i < n; i++) {
+                double tempVel = velocities[velOffset1 + i] + velocities[velOffset2 + i];
+                velocities[velOffset1 + i] = (float) (tempVel * coefficient1);
+                velocities[velOffset2 + i] = (float) (tempVel * coefficient2);
+            }
+            for (int i = 0; i < words; i++) {
+                long mask = generator.nextLong();
+                long loc1 = positions[offset1 + i];
+                long loc2 = positions[offset2 + i];
+                positions[offset1 + i] = (loc1 & mask) | (loc2 & ~mask);
+                positions[offset2 + i] = (loc2 & mask) | (loc1 & ~mask);
+            }
+        }
+    }
+
+    /**
+     * Give random particles new random bits and a zero velocity, they keep their pBest.
+     *
+     * @param restartSize the number of particles to restart
+     */
+    protected void restart(int restartSize) {
+        long tailMask = tailMask();
+        PSOUtil.samplePool(generator, swarmSize, restartSize, pool);
+        for (int k = 0; k < restartSize; k++) {
+            int offset = pool[k] * words;
+            RandomSource random = particleGenerators[pool[k]];
+            for (int w = 0; w < words; w++) {
+                positions[offset + w] = random.nextLong();
+            }
+            positions[offset + words - 1] &= tailMask;
+            Arrays.fill(velocities, pool[k] * n, (pool[k] + 1) * n, 0);
+        }
+    }
+
+    /**
+     * Update pBest and gBest from the evaluated fitness.
+     */
+    protected void updateBest() {
+        int successes = 0;
+        for (int i = 0; i < swarmSize; i++) {
+            if (feasible[i])
+                isGBestfeasible = true;
+
+            if (isBetter(fitness[i], violation[i], pBest[i], pBestViolation[i])) {
+                pBest[i] = fitness[i];
+                pBestViolation[i] = violation[i];
+                System.arraycopy(positions, i * words, pBestPositions, i * words, words);
+                successes++;
+            }
+        }
+
+        int bestParticleIndex = getBestPos(fitness, violation);
+        if (isBetter(fitness[bestParticleIndex], violation[bestParticleIndex], gBest, gBestViolation)) {
+            double previous = gBest;
+            gBest = fitness[bestParticleIndex];
+            gBestViolation = violation[bestParticleIndex];
+            System.arraycopy(positions, bestParticleIndex * words, gBestPosition, 0, words);
+            if (monitored)
+                fireImprovement(previous);
+        }
+        parameterController.onIterationEnd(this, successes);
+    }
+
+    private int evaluateSwarm() {
+        if (evalCache == null) {
+            evaluationExecutor.forEach(swarmSize, task);
+            return swarmSize;
+        }
+
+        int pendingCount = 0;
+        for (int i = 0; i < swarmSize; i++) {
+            if (evalCache.get(positions, i * words, results[i], epsilon))
+                apply(i);
+            else
+                pending[pendingCount++] = i;
+        }
+        evaluationExecutor.forEach(pendingCount, pendingTask);
+        for (int k = 0; k < pendingCount; k++) {
+            evalCache.put(positions, pending[k] * words, results[pending[k]]);
+        }
+        return pendingCount;
+    }
+
+    private void evaluate(int i) {
+        EvalResult result = results[i];
+        double constr = optModel.evalConstr(views[i]);
+        result.setViolation(constr);
+        result.setObjective(constr > epsilon ? Double.NaN : optModel.evalObj(views[i]));
+        apply(i);
+    }
+
+    private void apply(int i) {
+        EvalResult result = results[i];
+        violation[i] = result.getViolation();
+        feasible[i] = violation[i] <= 0;
+        fitness[i] = violation[i] > epsilon ? violation[i] + PUNISHMENT : result.getObjective();
+    }
+
+    private long tailMask() {
+        int tail = n & 63;
+        return tail == 0 ? -1L : (1L << tail) - 1;
+    }
+
+    /**
+     * Memoize the evaluation of the bit patterns that have already been scored,
+     * the locations are used as the keys without packing. The cache is disabled by default.
+     *
+     * @param evalCache the cache created with the dimension of the model, {@code null} to disable it
+     */
+    public void setEvalCache(EvalCache evalCache) {
+        this.evalCache = evalCache;
+    }
+
+    public EvalCache getEvalCache() {
+        return evalCache;
+    }
+
+    /**
+     * @return the largest Hamming distance between a particle and gBest
+     */
+    @Override
+    public double getSwarmDiameter() {
+        int diameter = 0;
+        for (int i = 0; i < swarmSize; i++) {
+            int distance = 0;
+            for (int k = 0; k < words; k++) {
+                distance += Long.bitCount(positions[i * words + k] ^ gBestPosition[k]);
+            }
+            diameter = Math.max(diameter, distance);
+        }
+        return diameter;
+    }
+
+    /**
+     * The root mean square Euclidean distance between a particle and the centroid of the swarm,
+     * where the centroid is the frequency {@code p} of each bit, i.e. {@code sqrt(sum of p * (1 - p))}.
+     */
+    @Override
+    public double getSwarmDiversity() {
+        Arrays.fill(bitCounts, 0);
+        for (int i = 0; i < swarmSize; i++) {
+            for (int j = 0; j < n; j++) {
+                bitCounts[j] += (int) (positions[i * words + (j >>> 6)] >>> j) & 1;
+            }
+        }
+        double diversity = 0;
+        for (int j = 0; j < n; j++) {
+            double p = (double) bitCounts[j] / swarmSize;
+            diversity += p * (1 - p);
+        }
+        return Math.sqrt(diversity);
+    }
+
+    @Override
+    public double getFeasibleRatio() {
+        return PSOUtil.getFeasibleRatio(feasible);
+    }
+
+    /**
+     * @return the view of the gBest location as packed bits
+     */
+    public BitLocation getgBestBitLocation() {
+        return new BitLocation(gBestPosition, 0, n);
+    }
+
+    /**
+     * Unpack the gBest location into 0 and 1.
+     */
+    @Override
+    public Location getgBestLocation() {
+        double[] loc = new double[n];
+        for (int j = 0; j < n; j++) {
+            loc[j] = (gBestPosition[j >>> 6] >>> j) & 1;
+        }
+        return new Location(loc);
+    }
+
+    @Override
+    public void setConstraintHandler(ConstraintHandler constraintHandler) {
+        super.setConstraintHandler(constraintHandler);
+    }
+
+    @Override
+    public void setRestart(double threshold, double fraction) {
+        super.setRestart(threshold, fraction);
+    }
+
+    @Override
+    public void setParameterController(ParameterController parameterController) {
+        super.setParameterController(parameterController);
+    }
+}
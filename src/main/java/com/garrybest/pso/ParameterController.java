@@ -0,0 +1,74 @@
+package com.garrybest.pso;
+
+/**
+ * Controls the parameters of the velocity update and of the operators of a solver from iteration to
+ * iteration. It is updated once before every iteration, and told how many pBest have improved after it.
+ * See {@link ParameterControllers} for the built-in controllers.
+ * <p>
+ * A controller keeps the state of a run, please do not share one instance between solvers.
+ */
+public interface ParameterController {
+
+    /**
+     * Compute the parameters of the iteration about to run.
+     *
+     * @param solver the solver, the state of the current run can be read from its getters
+     */
+    void update(AbstractPSO solver);
+
+    /**
+     * Record the outcome of an iteration.
+     *
+     * @param solver    the solver
+     * @param successes the number of particles whose pBest has improved in the iteration
+     */
+    default void onIterationEnd(AbstractPSO solver, int successes) {
+    }
+
+    /**
+     * Clear the state kept from a previous run, it is called when the swarm is initialized.
+     */
+    default void reset() {
+    }
+
+    /**
+     * @return the state kept between iterations, it is written to a {@link SwarmCheckpoint}
+     * so that a resumed run continues like the original one
+     */
+    default double[] getState() {
+        return new double[0];
+    }
+
+    /**
+     * Restore the state of {@link #getState()}, it is called after {@link #reset()} when a run is resumed.
+     *
+     * @param state the state read from the checkpoint
+     */
+    default void setState(double[] state) {
+    }
+
+    /**
+     * @return the inertia weight {@code w}
+     */
+    double getInertia();
+
+    /**
+     * @return the cognitive coefficient {@code c1}
+     */
+    double getCognitive();
+
+    /**
+     * @return the social coefficient {@code c2}
+     */
+    double getSocial();
+
+    /**
+     * @return the fraction of the swarm to cross over
+     */
+    double getHybridProbability();
+
+    /**
+     * @return the fraction of the swarm to mutate, if the solver mutates
+     */
+    double getMutationProbability();
+}
@@ -0,0 +1,172 @@
+package com.garrybest.pso;
+
+/**
+ * Factory of the built-in {@link ParameterController}s. Every controller starts from the
+ * {@link #linear()} schedule of {@link PSOConstants} and adapts some of its parameters.
+ */
+public final class ParameterControllers {
+
+    private ParameterControllers() {
+    }
+
+    /**
+     * The inertia weight and the mutation probability decrease linearly from their upper bound to
+     * their lower bound over the maximum iteration times, the other parameters are constant. This is the default.
+     */
+    public static ParameterController linear() {
+        return new Linear();
+    }
+
+    /**
+     * The inertia weight follows the fraction of the particles whose pBest has improved in the last
+     * iteration: {@code w = W_LOWERBOUND + (W_UPPERBOUND - W_LOWERBOUND) * successes / swarmSize}.
+     * The swarm keeps exploring while it is making progress and contracts once it stalls.
+     */
+    public static ParameterController successRateInertia() {
+        return new Linear() {
+            private double successRate;
+
+            @Override
+            public void update(AbstractPSO solver) {
+                super.update(solver);
+                inertia = PSOConstants.W_LOWERBOUND + (PSOConstants.W_UPPERBOUND - PSOConstants.W_LOWERBOUND) * successRate;
+            }
+
+            @Override
+            public void onIterationEnd(AbstractPSO solver, int successes) {
+                successRate = (double) successes / solver.pBest.length;
+            }
+
+            @Override
+            public void reset() {
+                successRate = 1;
+            }
+
+            @Override
+            public double[] getState() {
+                return new double[]{successRate};
+            }
+
+            @Override
+            public void setState(double[] state) {
+                successRate = state[0];
+            }
+        };
+    }
+
+    /**
+     * The mutation probability grows from {@code MUTATION_LOWERBOUND} to {@code MUTATION_UPPERBOUND}
+     * as the diversity of the swarm falls below the diversity of the first iteration,
+     * see {@link AbstractPSO#getSwarmDiversity()}. It shares the one pass over the swarm per iteration
+     * with the restart and the metrics.
+     */
+    public static ParameterController diversityMutation() {
+        return new Linear() {
+            private double initialDiversity;
+
+            @Override
+            public void update(AbstractPSO solver) {
+                super.update(solver);
+                double diversity = solver.getIterationDiversity();
+                if (Double.isNaN(initialDiversity))
+                    initialDiversity = diversity;
+                double collapse = initialDiversity > 0 ? 1 - diversity / initialDiversity : 1;
+                collapse = collapse < 0 ? 0 : collapse > 1 ? 1 : collapse;
+                mutationProbability = PSOConstants.MUTATION_LOWERBOUND +
+                        (PSOConstants.MUTATION_UPPERBOUND - PSOConstants.MUTATION_LOWERBOUND) * collapse;
+            }
+
+            @Override
+            public void reset() {
+                initialDiversity = Double.NaN;
+            }
+
+            @Override
+            public double[] getState() {
+                return new double[]{initialDiversity};
+            }
+
+            @Override
+            public void setState(double[] state) {
+                initialDiversity = state[0];
+            }
+        };
+    }
+
+    /**
+     * The constriction factor of Clerc and Kennedy with {@code phi = 4.1}, i.e. {@code w = 0.7298} and
+     * {@code c1 = c2 = 1.4962}.
+     */
+    public static ParameterController constriction() {
+        return constriction(4.1);
+    }
+
+    /**
+     * The constriction factor of Clerc and Kennedy: {@code chi = 2 / |2 - phi - sqrt(phi^2 - 4 * phi)|},
+     * {@code w = chi} and {@code c1 = c2 = chi * phi / 2}.
+     *
+     * @param phi the sum of the acceleration coefficients, it must be greater than 4
+     */
+    public static ParameterController constriction(double phi) {
+        if (!(phi > 4))
+            throw new IllegalArgumentException("phi must be greater than 4: " + phi);
+        double chi = 2 / Math.abs(2 - phi - Math.sqrt(phi * phi - 4 * phi));
+        return new Linear() {
+            @Override
+            public void update(AbstractPSO solver) {
+                super.update(solver);
+                inertia = chi;
+                cognitive = chi * phi / 2;
+                social = chi * phi / 2;
+            }
+        };
+    }
+
+    private static class Linear implements ParameterController {
+        protected double inertia;
+        protected double cognitive;
+        protected double social;
+        protected double hybridProbability;
+        protected double mutationProbability;
+
+        Linear() {
+            reset();
+        }
+
+        @Override
+        public void update(AbstractPSO solver) {
+            double progress = ((double) solver.getIterNum()) / solver.getMaxIter();
+            inertia = PSOConstants.W_UPPERBOUND - progress * (PSOConstants.W_UPPERBOUND - PSOConstants.W_LOWERBOUND);
+            cognitive = PSOConstants.C1;
+            social = PSOConstants.C2;
+            hybridProbability = PSOConstants.HYBRID_PROBABILITY;
+            mutationProbability = PSOConstants.MUTATION_UPPERBOUND -
+                    progress * (PSOConstants.MUTATION_UPPERBOUND - PSOConstants.MUTATION_LOWERBOUND);
+        }
+
+        @Override
+        public double getInertia() {
+            return inertia;
+        }
+
+        @Override
+        public double getCognitive() {
+            return cognitive;
+        }
+
+        @Override
+        public double getSocial() {
+            return social;
+        }
+
+        @Override
+        public double getHybridProbability() {
+            return hybridProbability;
+        }
+
+        @Override
+        public double getMutationProbability() {
+            return mutationProbability;
+        }
+    }
+}
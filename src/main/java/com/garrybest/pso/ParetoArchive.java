@@ -0,0 +1,262 @@
+package com.garrybest.pso;
+
+import java.util.Arrays;
+
+/**
+ * A bounded archive of non-dominated solutions for {@link MOPSO}, all objectives are minimized.
+ * A solution that satisfies the constraints dominates any solution that does not, and of two solutions
+ * that do not, the one with the smaller violation dominates.
+ * <p>
+ * The members are stored in flat arrays like {@link SwarmStore}, so the dominance check of a candidate
+ * is a linear scan over contiguous objective values that stops at the first objective where the two
+ * solutions are incomparable. The archive may grow beyond its capacity between two calls of {@link #prune()},
+ * which removes the most crowded members in one pass, so an insertion does not sort the archive.
+ */
+public class ParetoArchive {
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final int capacity;
+    private final int limit;
+    private final int dimension;
+    private final int objectives;
+    private final double[] positions;
+    private final double[] values;
+    private final double[] violations;
+    private final double[] crowding;
+    private final int[] order;
+    private int size;
+
+    /**
+     * @param capacity   the maximum number of members kept by {@link #prune()}
+     * @param dimension  the dimension of the positions
+     * @param objectives the number of objectives
+     */
+    public ParetoArchive(int capacity, int dimension, int objectives) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("The capacity of the archive must be positive: " + capacity);
+        this.capacity = capacity;
+        this.limit = Math.max(2 * capacity, capacity + 1);
+        this.dimension = dimension;
+        this.objectives = objectives;
+        this.positions = new double[limit * dimension];
+        this.values = new double[limit * objectives];
+        this.violations = new double[limit];
+        this.crowding = new double[limit];
+        this.order = new int[limit];
+    }
+
+    /**
+     * Add a solution if no member dominates or equals it, the members it dominates are removed.
+     * If the archive is full, it is pruned first.
+     *
+     * @param position        the position of the solution, stored from {@code positionOffset}
+     * @param positionOffset  the offset of the position
+     * @param objectiveValues the objective function values of the solution, stored from {@code objectiveOffset}
+     * @param objectiveOffset the offset of the objective function values
+     * @param violation       the constraint violation of the solution
+     * @return whether the solution is added
+     */
+    public boolean add(double[] position, int positionOffset, double[] objectiveValues, int objectiveOffset, double violation) {
+        for (int k = 0; k < size; ) {
+            int comparison = compare(k, objectiveValues, objectiveOffset, violation);
+            if (comparison < 0)
+                return false;
+            if (comparison > 0)
+                remove(k); // the last member moves to k, check it next
+            else
+                k++;
+        }
+
+        if (size == limit)
+            prune();
+        System.arraycopy(position, positionOffset, positions, size * dimension, dimension);
+        System.arraycopy(objectiveValues, objectiveOffset, values, size * objectives, objectives);
+        violations[size] = violation;
+        crowding[size] = Double.POSITIVE_INFINITY; // until the next prune
+        size++;
+        return true;
+    }
+
+    /**
+     * Remove the most crowded members until the archive is within its capacity,
+     * then refresh the crowding distance of every member.
+     */
+    public void prune() {
+        updateCrowding();
+        if (size <= capacity)
+            return;
+
+        int excess = size - capacity;
+        for (int k = 0; k < size; k++) {
+            order[k] = k;
+        }
+        sort(0, size, crowding, 1, 0);
+        // remove by descending index, so that the member moved into a hole is never one to remove
+        Arrays.sort(order, 0, excess);
+        for (int k = excess - 1; k >= 0; k--) {
+            remove(order[k]);
+        }
+        updateCrowding();
+    }
+
+    /**
+     * Select a leader by a binary tournament on the crowding distance,
+     * the less crowded regions of the front are preferred.
+     *
+     * @param random the random generator
+     * @return the index of the leader
+     */
+    public int selectLeader(RandomSource random) {
+        int first = random.nextInt(size);
+        int second = random.nextInt(size);
+        return crowding[first] >= crowding[second] ? first : second;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @param k the index of a member
+     * @return a copy of the position of the member
+     */
+    public double[] getPosition(int k) {
+        return Arrays.copyOfRange(positions, k * dimension, (k + 1) * dimension);
+    }
+
+    /**
+     * @param k the index of a member
+     * @return a copy of the objective function values of the member
+     */
+    public double[] getObjectives(int k) {
+        return Arrays.copyOfRange(values, k * objectives, (k + 1) * objectives);
+    }
+
+    public double getViolation(int k) {
+        return violations[k];
+    }
+
+    /**
+     * @param k the index of a member
+     * @return the crowding distance of the member as of the last {@link #prune()}, infinite at the extremes of the front
+     */
+    public double getCrowdingDistance(int k) {
+        return crowding[k];
+    }
+
+    /**
+     * @return the flat positions of the members, the {@code k}-th member is stored at {@code k * dimension}
+     */
+    double[] getPositions() {
+        return positions;
+    }
+
+    /**
+     * @return -1 if the member dominates or equals the candidate, 1 if the candidate dominates the member, otherwise 0
+     */
+    private int compare(int k, double[] candidate, int offset, double violation) {
+        double memberViolation = violations[k];
+        if (memberViolation > 0 || violation > 0)
+            return memberViolation <= violation ? -1 : 1;
+
+        boolean better = false;
+        boolean worse = false;
+        int base = k * objectives;
+        for (int j = 0; j < objectives; j++) {
+            double a = values[base + j];
+            double b = candidate[offset + j];
+            if (a < b)
+                better = true;
+            else if (a > b)
+                worse = true;
+            if (better && worse)
+                return 0;
+        }
+        return worse ? 1 : -1;
+    }
+
+    private void remove(int k) {
+        int last = --size;
+        if (k == last)
+            return;
+        System.arraycopy(positions, last * dimension, positions, k * dimension, dimension);
+        System.arraycopy(values, last * objectives, values, k * objectives, objectives);
+        violations[k] = violations[last];
+        crowding[k] = crowding[last];
+    }
+
+    private void updateCrowding() {
+        if (size <= 2) {
+            Arrays.fill(crowding, 0, size, Double.POSITIVE_INFINITY);
+            return;
+        }
+        Arrays.fill(crowding, 0, size, 0);
+        for (int j = 0; j < objectives; j++) {
+            for (int k = 0; k < size; k++) {
+                order[k] = k;
+            }
+            sort(0, size, values, objectives, j);
+            double min = values[order[0] * objectives + j];
+            double max = values[order[size - 1] * objectives + j];
+            crowding[order[0]] = Double.POSITIVE_INFINITY;
+            crowding[order[size - 1]] = Double.POSITIVE_INFINITY;
+            if (max > min) {
+                for (int k = 1; k < size - 1; k++) {
+                    crowding[order[k]] += (values[order[k + 1] * objectives + j] - values[order[k - 1] * objectives + j]) / (max - min);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sort {@code order[from, to)} by the keys {@code keys[order[k] * stride + column]}, without boxing.
+     */
+    private void sort(int from, int to, double[] keys, int stride, int column) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            int mid = (from + to) >>> 1;
+            double a = keys[order[from] * stride + column];
+            double b = keys[order[mid] * stride + column];
+            double c = keys[order[to - 1] * stride + column];
+            double pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c)); // median of three
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (keys[order[i] * stride + column] < pivot)
+                    i++;
+                while (keys[order[j] * stride + column] > pivot)
+                    j--;
+                if (i <= j) {
+                    int temp = order[i];
+                    order[i++] = order[j];
+                    order[j--] = temp;
+                }
+            }
+            if (j - from < to - i) { // recurse into the smaller part
+                sort(from, j + 1, keys, stride, column);
+                from = i;
+            } else {
+                sort(i, to, keys, stride, column);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            int index = order[i];
+            double key = keys[index * stride + column];
+            int j = i - 1;
+            while (j >= from && keys[order[j] * stride + column] > key) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = index;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.garrybest.pso;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Solves many models concurrently on a shared, fixed pool of daemon threads.
+ * A job runs {@link #SLICE_ITERATIONS} iterations at a time and then goes back to the end of the queue,
+ * so a long job does not hold up the short ones submitted after it.
+ * <p>
+ * The {@link HybridPSO} solvers are pooled by dimension and swarm size. A finished solver is bound to
+ * the next model with the default settings, so its swarm and every buffer are reused instead of allocated.
+ * Set the seed in the configurer if a job must be reproducible, a pooled solver continues its random stream.
+ * <p>
+ * A job is cancelled by {@link CompletableFuture#cancel(boolean)}, it stops at the next iteration
+ * with {@link TerminationReason#CANCELLED}.
+ * A job past its deadline stops with {@link TerminationReason#DEADLINE} and the best solution found so far,
+ * or fails with a {@link TimeoutException} if it has not started yet.
+ */
+public class PsoSolverService implements AutoCloseable {
+
+    /**
+     * The number of iterations a job runs before it yields to the other jobs.
+     */
+    public static final int SLICE_ITERATIONS = 10;
+
+    /**
+     * The default maximum number of jobs submitted but not completed.
+     */
+    public static final int MAX_PENDING_JOBS = 1024;
+
+    private final ExecutorService executor;
+    private final Semaphore admission;
+    private final int poolCapacity;
+    private final Map<Long, ArrayDeque<HybridPSO>> idleSolvers = new HashMap<>();
+
+    /**
+     * Constructs a service with a thread per available processor.
+     */
+    public PsoSolverService() {
+        this(Runtime.getRuntime().availableProcessors(), MAX_PENDING_JOBS);
+    }
+
+    /**
+     * @param nThreads       the number of threads
+     * @param maxPendingJobs the maximum number of jobs submitted but not completed, the others are rejected
+     */
+    public PsoSolverService(int nThreads, int maxPendingJobs) {
+        if (nThreads <= 0)
+            throw new IllegalArgumentException("The number of threads must be positive: " + nThreads);
+        if (maxPendingJobs <= 0)
+            throw new IllegalArgumentException("The maximum number of pending jobs must be positive: " + maxPendingJobs);
+        this.executor = Executors.newFixedThreadPool(nThreads, r -> {
+            Thread thread = new Thread(r, "pso-solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.admission = new Semaphore(maxPendingJobs);
+        this.poolCapacity = 2 * nThreads;
+    }
+
+    /**
+     * Solve a model with the default settings and swarm size, and no deadline.
+     *
+     * @param optModel the model of the problem you want to solve
+     * @return the future result
+     */
+    public CompletableFuture<SolveResult> submit(OptModel optModel) {
+        return submit(optModel, solver -> {
+        });
+    }
+
+    /**
+     * Solve a model with the default swarm size and no deadline.
+     *
+     * @param optModel   the model of the problem you want to solve
+     * @param configurer sets up the solver before the swarm is initialized
+     * @return the future result
+     */
+    public CompletableFuture<SolveResult> submit(OptModel optModel, Consumer<? super HybridPSO> configurer) {
+        return submit(optModel, (int) (10 + 2 * Math.sqrt(optModel.getDimentions())), configurer, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Solve a model. The future fails with a {@link RejectedExecutionException} if too many jobs are
+     * pending or the service is closed.
+     * <p>
+     * The configurer runs on a thread of the service. An evaluation executor it sets is not closed by the service.
+     *
+     * @param optModel   the model of the problem you want to solve
+     * @param swarmSize  the size of the PSO swarm
+     * @param configurer sets up the solver before the swarm is initialized
+     * @param timeout    the time from now until the deadline, a non-positive timeout means no deadline
+     * @param unit       the unit of the timeout
+     * @return the future result
+     */
+    public CompletableFuture<SolveResult> submit(OptModel optModel, int swarmSize, Consumer<? super HybridPSO> configurer,
+                                                 long timeout, TimeUnit unit) {
+        CompletableFuture<SolveResult> future = new CompletableFuture<>();
+        if (!admission.tryAcquire()) {
+            future.completeExceptionally(new RejectedExecutionException("Too many pending jobs"));
+            return future;
+        }
+        future.whenComplete((result, failure) -> admission.release());
+
+        Job job = new Job(optModel, swarmSize, configurer, timeout > 0 ? System.nanoTime() + unit.toNanos(timeout) : 0, future);
+        try {
+            executor.execute(job);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Stop accepting jobs, the pending jobs fail with a {@link RejectedExecutionException} at the end of their slice.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private HybridPSO acquire(OptModel optModel, int swarmSize) {
+        HybridPSO solver;
+        synchronized (idleSolvers) {
+            ArrayDeque<HybridPSO> idle = idleSolvers.get(key(optModel.getDimentions(), swarmSize));
+            solver = idle == null ? null : idle.poll();
+        }
+        if (solver == null)
+            return new HybridPSO(optModel, swarmSize);
+        solver.reset(optModel);
+        return solver;
+    }
+
+    private void release(HybridPSO solver, int dimension) {
+        synchronized (idleSolvers) {
+            ArrayDeque<HybridPSO> idle = idleSolvers.computeIfAbsent(key(dimension, solver.swarmSize), k -> new ArrayDeque<>());
+            if (idle.size() < poolCapacity)
+                idle.push(solver);
+        }
+    }
+
+    private static long key(int dimension, int swarmSize) {
+        return (long) dimension << 32 | swarmSize;
+    }
+
+    /**
+     * A submitted job, it is also the stopping criterion of its solver for the deadline and the cancellation.
+     */
+    private final class Job implements Runnable, StoppingCriterion {
+        private final OptModel optModel;
+        private final int swarmSize;
+        private final Consumer<? super HybridPSO> configurer;
+        private final long deadline;
+        private final CompletableFuture<SolveResult> future;
+        private HybridPSO solver;
+
+        Job(OptModel optModel, int swarmSize, Consumer<? super HybridPSO> configurer, long deadline,
+            CompletableFuture<SolveResult> future) {
+            this.optModel = optModel;
+            this.swarmSize = swarmSize;
+            this.configurer = configurer;
+            this.deadline = deadline;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (future.isDone()) { // cancelled between two slices
+                    releaseSolver();
+                    return;
+                }
+                if (solver == null) {
+                    if (isPastDeadline()) {
+                        future.completeExceptionally(new TimeoutException("The deadline passed before the job started"));
+                        return;
+                    }
+                    solver = acquire(optModel, swarmSize);
+                    configurer.accept(solver);
+                    solver.addStoppingCriterion(this);
+                    solver.initializeSwarm();
+                }
+
+                if (!solver.run(SLICE_ITERATIONS)) {
+                    executor.execute(this);
+                    return;
+                }
+                if (!future.isDone()) {
+                    solver.fireTermination();
+                    future.complete(new SolveResult(solver));
+                }
+                releaseSolver();
+            } catch (Throwable t) {
+                solver = null; // the state of the solver is unknown, do not pool it
+                future.completeExceptionally(t);
+            }
+        }
+
+        @Override
+        public boolean shouldStop(AbstractPSO solver) {
+            return future.isDone() || isPastDeadline();
+        }
+
+        @Override
+        public TerminationReason getReason() {
+            return future.isCancelled() ? TerminationReason.CANCELLED : TerminationReason.DEADLINE;
+        }
+
+        private boolean isPastDeadline() {
+            return deadline != 0 && System.nanoTime() - deadline >= 0;
+        }
+
+        private void releaseSolver() {
+            if (solver != null) {
+                release(solver, optModel.getDimentions());
+                solver = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.garrybest.pso;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A seedable random generator with explicit state, based on xoroshiro128++.
+ * Unlike {@link java.util.Random} it has no atomic seed, so every thread or particle
+ * should own its stream, see {@link #split()}. The state can be saved and restored,
+ * so a run can be reproduced bit for bit from its seed or from a checkpoint.
+ * <p>
+ * The generator is not thread-safe.
+ */
+public final class RandomSource {
+
+    /**
+     * The number of {@code long}s of the state, see {@link #getState(long[], int)}.
+     */
+    public static final int STATE_SIZE = 4;
+
+    private static final AtomicLong SEED_UNIQUIFIER = new AtomicLong(0x5DEECE66DL);
+
+    private long s0;
+    private long s1;
+    private double nextGaussian;
+    private boolean haveNextGaussian;
+
+    /**
+     * Constructs a generator with a seed that differs on every call.
+     */
+    public RandomSource() {
+        this(mix64(SEED_UNIQUIFIER.addAndGet(0x9E3779B97F4A7C15L)) ^ System.nanoTime());
+    }
+
+    /**
+     * Constructs a generator, two generators with the same seed produce the same sequence.
+     *
+     * @param seed the seed
+     */
+    public RandomSource(long seed) {
+        setSeed(seed);
+    }
+
+    /**
+     * Reset the generator, the state is expanded from the seed with SplitMix64.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        long x = seed + 0x9E3779B97F4A7C15L;
+        s0 = mix64(x);
+        s1 = mix64(x + 0x9E3779B97F4A7C15L);
+        if ((s0 | s1) == 0) // the all-zero state is a fixed point
+            s1 = 1;
+        haveNextGaussian = false;
+    }
+
+    /**
+     * Create an independent stream, seeded from the next value of this generator.
+     *
+     * @return the new generator
+     */
+    public RandomSource split() {
+        return new RandomSource(nextLong());
+    }
+
+    public long nextLong() {
+        long a = s0;
+        long b = s1;
+        long result = Long.rotateLeft(a + b, 17) + a;
+        b ^= a;
+        s0 = Long.rotateLeft(a, 49) ^ b ^ (b << 21);
+        s1 = Long.rotateLeft(b, 28);
+        return result;
+    }
+
+    /**
+     * @return a uniformly distributed value in {@code [0, 1)}
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * @param bound the upper bound, exclusive
+     * @return a uniformly distributed value in {@code [0, bound)}
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0)
+            throw new IllegalArgumentException("The bound must be positive: " + bound);
+        // Lemire's multiply and reject, unbiased without a division in the common case
+        long m = (nextLong() >>> 32) * bound;
+        long low = m & 0xFFFFFFFFL;
+        if (low < bound) {
+            long threshold = (0x100000000L - bound) % bound;
+            while (low < threshold) {
+                m = (nextLong() >>> 32) * bound;
+                low = m & 0xFFFFFFFFL;
+            }
+        }
+        return (int) (m >>> 32);
+    }
+
+    /**
+     * @return a normally distributed value with mean 0 and standard deviation 1
+     */
+    public double nextGaussian() {
+        if (haveNextGaussian) {
+            haveNextGaussian = false;
+            return nextGaussian;
+        }
+        double v1, v2, s;
+        do {
+            v1 = 2 * nextDouble() - 1;
+            v2 = 2 * nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        double multiplier = Math.sqrt(-2 * Math.log(s) / s);
+        nextGaussian = v2 * multiplier;
+        haveNextGaussian = true;
+        return v1 * multiplier;
+    }
+
+    /**
+     * Save the state of the generator.
+     *
+     * @param state  output, the state is written to {@code state[offset, offset + STATE_SIZE)}
+     * @param offset the offset
+     */
+    public void getState(long[] state, int offset) {
+        state[offset] = s0;
+        state[offset + 1] = s1;
+        state[offset + 2] = Double.doubleToRawLongBits(nextGaussian);
+        state[offset + 3] = haveNextGaussian ? 1 : 0;
+    }
+
+    /**
+     * Restore a state saved by {@link #getState(long[], int)}.
+     *
+     * @param state  the saved state
+     * @param offset the offset
+     */
+    public void setState(long[] state, int offset) {
+        s0 = state[offset];
+        s1 = state[offset + 1];
+        nextGaussian = Double.longBitsToDouble(state[offset + 2]);
+        haveNextGaussian = state[offset + 3] != 0;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,94 @@
+package com.garrybest.pso;
+
+import java.util.Arrays;
+
+/**
+ * The immutable result of a run, see {@link AbstractPSO#solve()}. It is a copy of the state of the solver,
+ * so it stays valid after the solver is reset and reused for another run.
+ */
+public final class SolveResult {
+
+    private final double[] bestPosition;
+    private final double bestFitness;
+    private final double bestViolation;
+    private final boolean feasible;
+    private final int iterations;
+    private final long evaluations;
+    private final long wallTimeNanos;
+    private final TerminationReason terminationReason;
+    private final double[] convergenceTrace;
+
+    /**
+     * Take a snapshot of a terminated solver.
+     *
+     * @param solver the solver
+     */
+    SolveResult(AbstractPSO solver) {
+        Location location = solver.getgBestLocation();
+        this.bestPosition = location == null ? new double[0] : location.getLoc().clone();
+        this.bestFitness = solver.getgBest();
+        this.bestViolation = solver.getgBestViolation();
+        this.feasible = bestViolation <= 0;
+        this.iterations = solver.getIterNum();
+        this.evaluations = solver.getEvaluations();
+        this.wallTimeNanos = solver.getElapsedNanos();
+        this.terminationReason = solver.getTerminationReason();
+        this.convergenceTrace = solver.getConvergenceTrace();
+    }
+
+    /**
+     * @return a copy of the position of gBest
+     */
+    public double[] getBestPosition() {
+        return bestPosition.clone();
+    }
+
+    public double getBestFitness() {
+        return bestFitness;
+    }
+
+    public double getBestViolation() {
+        return bestViolation;
+    }
+
+    /**
+     * @return whether the best position satisfies the constraints
+     */
+    public boolean isFeasible() {
+        return feasible;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * @return the wall-clock time from the initialization of the swarm to the snapshot, in nanoseconds
+     */
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    public TerminationReason getTerminationReason() {
+        return terminationReason;
+    }
+
+    /**
+     * @return a copy of gBest at the end of every iteration, empty unless
+     * {@link AbstractPSO#setTraceConvergence(boolean)} was set
+     */
+    public double[] getConvergenceTrace() {
+        return convergenceTrace.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "SolveResult{bestFitness=" + bestFitness + ", feasible=" + feasible + ", iterations=" + iterations
+                + ", evaluations=" + evaluations + ", wallTimeNanos=" + wallTimeNanos + ", terminationReason=" + terminationReason
+                + ", bestPosition=" + Arrays.toString(bestPosition) + "}";
+    }
+}
@@ -0,0 +1,38 @@
+package com.garrybest.pso;
+
+/**
+ * Receives the progress of a run, register it with {@link AbstractPSO#addListener(SolverListener)}.
+ * The callbacks run on the thread of the solver, between the phases of an iteration,
+ * so they should return quickly. A solver without listeners does not collect any metric.
+ */
+public interface SolverListener {
+
+    /**
+     * Called at the end of every iteration.
+     *
+     * @param solver  the solver
+     * @param metrics the metrics of the iteration, only valid during the call
+     */
+    default void onIterationEnd(AbstractPSO solver, SolverMetrics metrics) {
+    }
+
+    /**
+     * Called when gBest improves, or when a solver without a single gBest counts an improvement,
+     * see {@link AbstractPSO#getImprovements()}, then both values are {@code NaN}.
+     *
+     * @param solver   the solver
+     * @param previous the previous gBest
+     * @param current  the new gBest
+     */
+    default void onImprovement(AbstractPSO solver, double previous, double current) {
+    }
+
+    /**
+     * Called when a run stops.
+     *
+     * @param solver the solver
+     * @param reason why the run stopped
+     */
+    default void onTermination(AbstractPSO solver, TerminationReason reason) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.garrybest.pso;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link JmxSolverListener}.
+ */
+public interface SolverMXBean {
+
+    int getIteration();
+
+    double getGBest();
+
+    long getEvaluations();
+
+    double getFeasibleRatio();
+
+    double getDiversity();
+
+    /**
+     * @return the time spent in each phase in the run, in nanoseconds
+     */
+    Map<String, Long> getPhaseNanos();
+
+    boolean isRunning();
+
+    /**
+     * @return why the last run stopped, or {@code null} if it is running
+     */
+    String getTerminationReason();
+}
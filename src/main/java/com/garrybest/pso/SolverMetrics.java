@@ -0,0 +1,109 @@
+package com.garrybest.pso;
+
+/**
+ * The metrics of the latest iteration of a solver, together with the totals of the run.
+ * The solver reuses one instance and only fills it when a {@link SolverListener} is registered,
+ * please copy the values you want to keep.
+ */
+public class SolverMetrics {
+
+    /**
+     * The phases of an iteration.
+     */
+    public enum Phase {
+        VELOCITY_UPDATE, HYBRIDIZATION, MUTATION, EVALUATION, BEST_UPDATE, RESTART
+    }
+
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private final long[] totalPhaseNanos = new long[Phase.values().length];
+    private int iteration;
+    private double gBest;
+    private long evaluations;
+    private long totalEvaluations;
+    private double feasibleRatio;
+    private double diversity;
+
+    /**
+     * @return the number of completed iterations
+     */
+    public int getIteration() {
+        return iteration;
+    }
+
+    public double getgBest() {
+        return gBest;
+    }
+
+    /**
+     * @return the number of model evaluations in the latest iteration
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * @return the number of model evaluations in the run
+     */
+    public long getTotalEvaluations() {
+        return totalEvaluations;
+    }
+
+    /**
+     * @return the fraction of the particles that satisfy the constraints
+     */
+    public double getFeasibleRatio() {
+        return feasibleRatio;
+    }
+
+    /**
+     * @return the diversity of the swarm, see {@link AbstractPSO#getSwarmDiversity()}
+     */
+    public double getDiversity() {
+        return diversity;
+    }
+
+    /**
+     * @return the time spent in the phase in the latest iteration, in nanoseconds
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * @return the time spent in the phase in the run, in nanoseconds
+     */
+    public long getTotalPhaseNanos(Phase phase) {
+        return totalPhaseNanos[phase.ordinal()];
+    }
+
+    void addPhaseNanos(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+        totalPhaseNanos[phase.ordinal()] += nanos;
+    }
+
+    void endIteration(int iteration, double gBest, long evaluations, long totalEvaluations,
+                      double feasibleRatio, double diversity) {
+        this.iteration = iteration;
+        this.gBest = gBest;
+        this.evaluations = evaluations;
+        this.totalEvaluations = totalEvaluations;
+        this.feasibleRatio = feasibleRatio;
+        this.diversity = diversity;
+    }
+
+    void clearIteration() {
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = 0;
+        }
+    }
+
+    void reset() {
+        clearIteration();
+        for (int i = 0; i < totalPhaseNanos.length; i++) {
+            totalPhaseNanos[i] = 0;
+        }
+        iteration = 0;
+        evaluations = 0;
+        totalEvaluations = 0;
+    }
+}
@@ -0,0 +1,188 @@
+package com.garrybest.pso;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Factory of the built-in {@link StoppingCriterion}s. The criteria are checked between
+ * iterations, so a budget may be overshot by at most one iteration.
+ * A criterion keeps the state of a run, please do not share one instance between solvers.
+ */
+public final class StoppingCriteria {
+
+    private StoppingCriteria() {
+    }
+
+    /**
+     * Stop when gBest has not improved for {@code iterations} iterations, nor the solver has
+     * counted any other improvement, see {@link AbstractPSO#getImprovements()}.
+     *
+     * @param iterations the number of iterations without improvement
+     */
+    public static StoppingCriterion noImprovement(int iterations) {
+        return new NoImprovement(iterations);
+    }
+
+    /**
+     * Stop when gBest has improved by less than {@code epsilon}, relative to its value
+     * {@code window} iterations ago, or at the last check before that if the solver checks
+     * the criteria every few iterations.
+     *
+     * @param epsilon the minimum relative improvement
+     * @param window  the number of iterations to compare over
+     */
+    public static StoppingCriterion relativeImprovement(double epsilon, int window) {
+        return new RelativeImprovement(epsilon, window);
+    }
+
+    /**
+     * Stop when the diameter of the swarm is below {@code diameter}, see {@link AbstractPSO#getSwarmDiameter()}.
+     *
+     * @param diameter the minimum diameter of the swarm
+     */
+    public static StoppingCriterion swarmCollapse(double diameter) {
+        return new StoppingCriterion() {
+            @Override
+            public boolean shouldStop(AbstractPSO solver) {
+                return solver.getSwarmDiameter() < diameter;
+            }
+
+            @Override
+            public TerminationReason getReason() {
+                return TerminationReason.SWARM_COLLAPSE;
+            }
+        };
+    }
+
+    /**
+     * Stop when the wall-clock time since the swarm was initialized exceeds the budget.
+     *
+     * @param duration the budget
+     * @param unit     the unit of the budget
+     */
+    public static StoppingCriterion timeBudget(long duration, TimeUnit unit) {
+        long nanos = unit.toNanos(duration);
+        return new StoppingCriterion() {
+            @Override
+            public boolean shouldStop(AbstractPSO solver) {
+                return solver.getElapsedNanos() >= nanos;
+            }
+
+            @Override
+            public TerminationReason getReason() {
+                return TerminationReason.TIME_BUDGET;
+            }
+        };
+    }
+
+    /**
+     * Stop when the model has evaluated {@code evaluations} locations.
+     *
+     * @param evaluations the budget of model evaluations
+     */
+    public static StoppingCriterion evaluationBudget(long evaluations) {
+        return new StoppingCriterion() {
+            @Override
+            public boolean shouldStop(AbstractPSO solver) {
+                return solver.getEvaluations() >= evaluations;
+            }
+
+            @Override
+            public TerminationReason getReason() {
+                return TerminationReason.EVALUATION_BUDGET;
+            }
+        };
+    }
+
+    private static final class NoImprovement implements StoppingCriterion {
+        private final int iterations;
+        private double best;
+        private long improvements;
+        private int lastImprovement;
+
+        NoImprovement(int iterations) {
+            this.iterations = iterations;
+            reset();
+        }
+
+        @Override
+        public boolean shouldStop(AbstractPSO solver) {
+            if (solver.getgBest() < best || solver.getImprovements() > improvements) {
+                best = solver.getgBest();
+                improvements = solver.getImprovements();
+                lastImprovement = solver.getIterNum();
+            }
+            return solver.getIterNum() - lastImprovement >= iterations;
+        }
+
+        @Override
+        public TerminationReason getReason() {
+            return TerminationReason.NO_IMPROVEMENT;
+        }
+
+        @Override
+        public void reset() {
+            best = Double.POSITIVE_INFINITY;
+            improvements = 0;
+            lastImprovement = 0;
+        }
+    }
+
+    /**
+     * Keeps the gBest of the checked iterations in a ring buffer, from the latest one at or before
+     * {@code window} iterations ago. A solver may check the criteria every few iterations, e.g.
+     * {@link IslandPSO}, so there may be no entry of exactly {@code window} iterations ago.
+     */
+    private static final class RelativeImprovement implements StoppingCriterion {
+        private final double epsilon;
+        private final int window;
+        private final double[] history;
+        private final int[] recorded;
+        private int first;
+        private int size;
+
+        RelativeImprovement(double epsilon, int window) {
+            if (window <= 0)
+                throw new IllegalArgumentException("The window must be positive: " + window);
+            this.epsilon = epsilon;
+            this.window = window;
+            this.history = new double[window + 1];
+            this.recorded = new int[window + 1];
+            reset();
+        }
+
+        @Override
+        public boolean shouldStop(AbstractPSO solver) {
+            int iterNum = solver.getIterNum();
+            int past = iterNum - window;
+            // at most window - 1 older entries are after past, so the buffer has room for the new one
+            while (size > 1 && recorded[(first + 1) % recorded.length] <= past) {
+                first = (first + 1) % recorded.length;
+                size--;
+            }
+            int last = (first + size - 1) % recorded.length;
+            if (size == 0 || recorded[last] != iterNum) {
+                last = (first + size) % recorded.length;
+                size++;
+            }
+            history[last] = solver.getgBest();
+            recorded[last] = iterNum;
+
+            if (recorded[first] > past)
+                return false;
+            double previous = history[first];
+            double improvement = previous - solver.getgBest();
+            return improvement <= epsilon * Math.abs(previous);
+        }
+
+        @Override
+        public TerminationReason getReason() {
+            return TerminationReason.RELATIVE_IMPROVEMENT;
+        }
+
+        @Override
+        public void reset() {
+            first = 0;
+            size = 0;
+        }
+    }
+}
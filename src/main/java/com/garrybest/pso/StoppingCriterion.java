@@ -0,0 +1,27 @@
+package com.garrybest.pso;
+
+/**
+ * A criterion to stop a run before the maximum iteration times, it is checked once before
+ * every iteration. See {@link StoppingCriteria} for the built-in criteria.
+ */
+public interface StoppingCriterion {
+
+    /**
+     * @param solver the solver to check, the state of the current run can be read from its getters
+     * @return whether the run should stop
+     */
+    boolean shouldStop(AbstractPSO solver);
+
+    /**
+     * @return the reason reported when this criterion stops a run
+     */
+    default TerminationReason getReason() {
+        return TerminationReason.CUSTOM;
+    }
+
+    /**
+     * Clear the state kept from a previous run, it is called when the swarm is initialized.
+     */
+    default void reset() {
+    }
+}
@@ -0,0 +1,37 @@
+package com.garrybest.pso;
+
+/**
+ * A cheap regression model of the fitness, trained online on every location evaluated by the real model.
+ * The solver uses it to pre-screen the moved particles, see {@link HybridPSO#setSurrogate(Surrogate)}.
+ * The locations are passed in the flat layout of {@link SwarmStore}.
+ */
+public interface Surrogate {
+
+    /**
+     * @return whether the surrogate has seen enough samples to predict
+     */
+    boolean isReady();
+
+    /**
+     * Predict the fitness value of a location.
+     *
+     * @param positions the flat positions
+     * @param offset    the offset of the location in {@code positions}
+     * @return the predicted fitness value
+     */
+    double predict(double[] positions, int offset);
+
+    /**
+     * Learn the fitness value of an evaluated location, the surrogate is updated incrementally.
+     *
+     * @param positions the flat positions
+     * @param offset    the offset of the location in {@code positions}
+     * @param fitness   the fitness value given by the real model
+     */
+    void add(double[] positions, int offset, double fitness);
+
+    /**
+     * Forget every sample.
+     */
+    void clear();
+}
@@ -0,0 +1,221 @@
+package com.garrybest.pso;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary checkpoint of a swarm stored in a {@link SwarmStore}. The file holds a fixed header
+ * (iteration counter, evaluations, gBest, the initial tolerance of the constraint violation), the state of
+ * every {@link RandomSource} of the solver, the permutation of the sampling pool, then pBest and its violations, the positions, the velocities,
+ * the pBest positions, the gBest position and the state of the {@link ParameterController} as raw doubles.
+ * <p>
+ * A checkpoint is written to a temporary file that replaces the target at the end,
+ * so a crash while writing leaves the previous checkpoint intact. Files larger than
+ * {@link #MAP_THRESHOLD} are read memory-mapped instead of copied into the heap.
+ * <p>
+ * The stopping criteria and the listeners are not part of the checkpoint,
+ * the criteria start afresh when a run is resumed. Neither are the samples of a {@link Surrogate},
+ * so a resumed run with a surrogate screens with the samples gathered since, and differs from the original run.
+ */
+public final class SwarmCheckpoint {
+
+    /**
+     * The size in bytes above which a checkpoint is read memory-mapped.
+     */
+    public static final long MAP_THRESHOLD = 1 << 20;
+
+    private static final int MAGIC = 0x50534F43; // "PSOC"
+    private static final int VERSION = 5;
+    private static final int HEADER_BYTES = 80;
+    private static final int CHUNK = 8192; // doubles per write
+
+    private SwarmCheckpoint() {
+    }
+
+    /**
+     * Write the state of a solver.
+     *
+     * @param solver the solver, its swarm must be initialized
+     * @param file   the checkpoint file, it is replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(AbstractPSO solver, Path file) throws IOException {
+        SwarmStore swarm = requireSwarm(solver);
+        long[] random = saveRandom(solver);
+        double[] controllerState = solver.parameterController.getState();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + random.length * Long.BYTES + poolBytes(solver.pool.length));
+            header.putInt(MAGIC).putInt(VERSION)
+                    .putInt(swarm.getSwarmSize()).putInt(swarm.getDimension())
+                    .putInt(solver.iterNum).putInt(solver.maxIter)
+                    .putLong(solver.evaluations)
+                    .putDouble(solver.tolFitness)
+                    .putDouble(solver.gBest)
+                    .putDouble(solver.gBestViolation)
+                    .putDouble(solver.initialEpsilon)
+                    .putInt(solver.isGBestfeasible ? 1 : 0)
+                    .putInt(RandomSource.STATE_SIZE)
+                    .putInt(controllerState.length)
+                    .putInt(0); // padding, so that the random states stay aligned
+            header.asLongBuffer().put(random);
+            header.position(header.position() + random.length * Long.BYTES);
+            header.asIntBuffer().put(solver.pool);
+            header.position(header.limit());
+            header.flip();
+            writeFully(channel, header);
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK * Double.BYTES);
+            writeDoubles(channel, buffer, solver.pBest);
+            writeDoubles(channel, buffer, solver.pBestViolation);
+            writeDoubles(channel, buffer, swarm.getPositions());
+            writeDoubles(channel, buffer, swarm.getVelocities());
+            writeDoubles(channel, buffer, swarm.getpBestPositions());
+            writeDoubles(channel, buffer, swarm.getgBestPosition());
+            writeDoubles(channel, buffer, controllerState);
+            channel.force(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restore the state of a solver, the run continues from the iteration of the checkpoint.
+     *
+     * @param solver the solver, created with the same model and swarm size as the checkpoint
+     * @param file   the checkpoint file
+     * @throws IOException if the file cannot be read or is not a checkpoint
+     */
+    public static void read(AbstractPSO solver, Path file) throws IOException {
+        SwarmStore swarm = requireSwarm(solver);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer;
+            if (size > MAP_THRESHOLD) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // read the whole file
+                }
+                buffer.flip();
+            }
+
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC)
+                throw new StreamCorruptedException("Not a swarm checkpoint: " + file);
+            int version = buffer.getInt();
+            if (version != VERSION)
+                throw new StreamCorruptedException("Unsupported checkpoint version: " + version);
+            int swarmSize = buffer.getInt();
+            int dimension = buffer.getInt();
+            if (swarmSize != swarm.getSwarmSize() || dimension != swarm.getDimension())
+                throw new IllegalArgumentException("The checkpoint has " + swarmSize + " particles of dimension "
+                        + dimension + ", but the solver has " + swarm.getSwarmSize() + " of dimension " + swarm.getDimension());
+
+            int iterNum = buffer.getInt();
+            int maxIter = buffer.getInt();
+            long evaluations = buffer.getLong();
+            double tolFitness = buffer.getDouble();
+            double gBest = buffer.getDouble();
+            double gBestViolation = buffer.getDouble();
+            double initialEpsilon = buffer.getDouble();
+            boolean feasible = buffer.getInt() != 0;
+            if (buffer.getInt() != RandomSource.STATE_SIZE)
+                throw new StreamCorruptedException("Unsupported random generator in checkpoint: " + file);
+            int controllerLength = buffer.getInt();
+            if (controllerLength < 0 || (long) controllerLength * Double.BYTES > buffer.remaining())
+                throw new StreamCorruptedException("Corrupted swarm checkpoint: " + file);
+            if (controllerLength != solver.parameterController.getState().length)
+                throw new StreamCorruptedException("The checkpoint was written with another parameter controller: " + file);
+            double[] controllerState = new double[controllerLength];
+            buffer.getInt(); // padding
+            long[] random = new long[(swarmSize + 1) * RandomSource.STATE_SIZE];
+            int[] pool = new int[swarmSize];
+            if (buffer.remaining() < random.length * Long.BYTES + poolBytes(pool.length))
+                throw new StreamCorruptedException("Truncated swarm checkpoint: " + file);
+            LongBuffer longs = buffer.asLongBuffer();
+            longs.get(random);
+            buffer.position(buffer.position() + random.length * Long.BYTES);
+            buffer.asIntBuffer().get(pool);
+            buffer.position(buffer.position() + poolBytes(pool.length));
+
+            long expected = (long) swarmSize * (3L * dimension + 2) + dimension + controllerState.length;
+            if (buffer.remaining() != expected * Double.BYTES)
+                throw new StreamCorruptedException("Truncated swarm checkpoint: " + file);
+            DoubleBuffer doubles = buffer.asDoubleBuffer();
+            doubles.get(solver.pBest);
+            doubles.get(solver.pBestViolation);
+            doubles.get(swarm.getPositions());
+            doubles.get(swarm.getVelocities());
+            doubles.get(swarm.getpBestPositions());
+            doubles.get(swarm.getgBestPosition());
+            doubles.get(controllerState);
+
+            solver.startRun(maxIter, tolFitness);
+            solver.iterNum = iterNum;
+            solver.evaluations = evaluations;
+            solver.gBest = gBest;
+            solver.gBestViolation = gBestViolation;
+            solver.initialEpsilon = initialEpsilon;
+            solver.isGBestfeasible = feasible;
+            solver.gBestLocation = swarm.getgBestLocation();
+            restoreRandom(solver, random);
+            System.arraycopy(pool, 0, solver.pool, 0, swarmSize);
+            solver.parameterController.setState(controllerState);
+        }
+    }
+
+    /**
+     * @return the size of the pool padded to a multiple of 8 bytes, so that the doubles stay aligned
+     */
+    private static int poolBytes(int length) {
+        return ((length + 1) & ~1) * Integer.BYTES;
+    }
+
+    private static SwarmStore requireSwarm(AbstractPSO solver) {
+        if (solver.swarm == null)
+            throw new UnsupportedOperationException(solver.getClass().getSimpleName() + " does not support checkpoints");
+        return solver.swarm;
+    }
+
+    private static void writeDoubles(FileChannel channel, ByteBuffer buffer, double[] values) throws IOException {
+        for (int from = 0; from < values.length; from += CHUNK) {
+            int length = Math.min(CHUNK, values.length - from);
+            buffer.clear();
+            buffer.asDoubleBuffer().put(values, from, length);
+            buffer.limit(length * Double.BYTES);
+            writeFully(channel, buffer);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static long[] saveRandom(AbstractPSO solver) {
+        long[] random = new long[(solver.particleGenerators.length + 1) * RandomSource.STATE_SIZE];
+        solver.generator.getState(random, 0);
+        for (int i = 0; i < solver.particleGenerators.length; i++) {
+            solver.particleGenerators[i].getState(random, (i + 1) * RandomSource.STATE_SIZE);
+        }
+        return random;
+    }
+
+    private static void restoreRandom(AbstractPSO solver, long[] random) {
+        solver.generator.setState(random, 0);
+        for (int i = 0; i < solver.particleGenerators.length; i++) {
+            solver.particleGenerators[i].setState(random, (i + 1) * RandomSource.STATE_SIZE);
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package com.garrybest.pso;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Evaluates the fitness value of the whole swarm in one pass.
+ * Each particle only writes its own slot of the output arrays, and the solver updates
+ * pBest and gBest afterwards in index order, so the result does not depend on the order
+ * in which an {@link EvaluationExecutor} happens to finish the particles.
+ * <p>
+ * If the model implements {@link BatchOptModel}, the whole swarm is handed to the model
+ * in a single call instead, and the executor is not used.
+ * <p>
+ * A location whose violation is within the tolerance {@code epsilon} of the {@link ConstraintHandler}
+ * gets its objective function value as fitness, the others get {@code violation + PUNISHMENT}.
+ * <p>
+ * If an {@link EvalCache} is set, the cached locations skip the model entirely and only
+ * the misses are evaluated, one particle at a time through the executor.
+ * <p>
+ * If a {@link Surrogate} is set, the particles are pre-screened: only those predicted to beat their pBest
+ * are evaluated, through the cache or the batch of the model as the whole swarm would be, and the others get an
+ * infinite fitness and violation, so they do not replace their pBest, and keep their last known feasibility.
+ * If no particle is promising, the one closest to its pBest is evaluated anyway.
+ * Every evaluated location trains the surrogate.
+ * The initial swarm has no pBest to beat, so it is evaluated in full by {@link #evaluateAll(EvaluationExecutor)}.
+ * <p>
+ * If the model implements {@link DeltaOptModel}, each particle keeps its last evaluated location and result,
+ * and the changed dimensions are found by comparing the two locations, so every operator that moves a particle
+ * is tracked without bookkeeping in the solver.
+ * <p>
+ * The evaluator is bound to its output arrays once, so a pass through the sequential
+ * executor does not allocate.
+ */
+public class SwarmEvaluator implements PSOConstants {
+
+    private OptModel optModel;
+    private BatchOptModel batchModel;
+    private DeltaOptModel deltaModel;
+    private final SwarmStore swarm;
+    private final double[] fitness;
+    private final boolean[] feasible;
+    private final double[] violation;
+    private final EvalResult[] results;
+    private final IntConsumer task = this::evaluate;
+    private final IntConsumer pendingTask = k -> evaluate(this.pending[k]);
+    private final IntConsumer screenedTask = k -> evaluate(this.screened[k]);
+    private double epsilon;
+    private EvalCache cache;
+    private long[] cacheKeys;
+    private int[] pending;
+    private int[] screened;
+    private double[] batchPositions;
+    private double[] batchFitness;
+    private double[] batchViolation;
+    private Surrogate surrogate;
+    private double[] thresholds;
+    private double[] predictions;
+    private long savedEvaluations;
+    private long screenedEvaluations;
+    private double absoluteError;
+    private double[] previousPositions;
+    private EvalResult[] previousResults;
+    private boolean[] hasPrevious;
+    private boolean[] kept;
+    private int[][] changed;
+
+    /**
+     * @param optModel  the model of the problem
+     * @param swarm     the swarm to evaluate
+     * @param fitness   output, the fitness value of each particle
+     * @param feasible  output, whether each particle satisfies the constraints
+     * @param violation output, the constraint violation of each particle
+     */
+    public SwarmEvaluator(OptModel optModel, SwarmStore swarm, double[] fitness, boolean[] feasible, double[] violation) {
+        this.swarm = swarm;
+        this.fitness = fitness;
+        this.feasible = feasible;
+        this.violation = violation;
+        this.results = new EvalResult[swarm.getSwarmSize()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = new EvalResult();
+        }
+        setOptModel(optModel);
+    }
+
+    /**
+     * Evaluate every particle of the swarm.
+     *
+     * @param executor the executor to run the evaluation
+     * @return the number of locations evaluated by the model
+     */
+    public int evaluate(EvaluationExecutor executor) {
+        if (surrogate != null)
+            return evaluateScreened(executor, true);
+        if (cache != null)
+            return evaluateCached(executor, null, swarm.getSwarmSize());
+        if (batchModel != null) {
+            evaluateBatch();
+            return swarm.getSwarmSize();
+        }
+        executor.forEach(swarm.getSwarmSize(), task);
+        return countModelCalls(null, swarm.getSwarmSize());
+    }
+
+    /**
+     * Count the particles whose evaluation has called the model, a particle that has not moved
+     * keeps its previous result in the delta evaluation.
+     *
+     * @param indices the indices of the evaluated particles, {@code null} for the whole swarm
+     * @param count   the number of evaluated particles
+     * @return the number of locations evaluated by the model
+     */
+    private int countModelCalls(int[] indices, int count) {
+        if (deltaModel == null)
+            return count;
+        int calls = count;
+        for (int k = 0; k < count; k++) {
+            if (kept[indices == null ? k : indices[k]])
+                calls--;
+        }
+        return calls;
+    }
+
+    /**
+     * Evaluate every particle of the swarm without the screening of the surrogate,
+     * the evaluated locations still train it.
+     *
+     * @param executor the executor to run the evaluation
+     * @return the number of locations evaluated by the model
+     */
+    public int evaluateAll(EvaluationExecutor executor) {
+        if (surrogate != null)
+            return evaluateScreened(executor, false);
+        return evaluate(executor);
+    }
+
+    /**
+     * Look the particles up in the cache and evaluate the misses.
+     *
+     * @param indices the indices of the particles to evaluate, {@code null} for the whole swarm
+     * @param count   the number of particles to evaluate
+     * @return the number of locations evaluated by the model
+     */
+    private int evaluateCached(EvaluationExecutor executor, int[] indices, int count) {
+        int n = swarm.getDimension();
+        int words = EvalCache.wordCount(n);
+        int pendingCount = 0;
+        for (int k = 0; k < count; k++) {
+            int i = indices == null ? k : indices[k];
+            EvalCache.pack(swarm.getPositions(), swarm.offset(i), n, cacheKeys, i * words);
+            if (cache.get(cacheKeys, i * words, results[i], epsilon)) {
+                apply(i);
+                if (deltaModel != null)
+                    remember(i);
+            } else
+                pending[pendingCount++] = i;
+        }
+
+        executor.forEach(pendingCount, pendingTask);
+
+        for (int k = 0; k < pendingCount; k++) {
+            int i = pending[k];
+            cache.put(cacheKeys, i * words, results[i]);
+        }
+        return countModelCalls(pending, pendingCount);
+    }
+
+    private int evaluateScreened(EvaluationExecutor executor, boolean screen) {
+        int swarmSize = swarm.getSwarmSize();
+        double[] positions = swarm.getPositions();
+        boolean ready = screen && surrogate.isReady();
+        int screenedCount = 0;
+        int closest = -1;
+        for (int i = 0; i < swarmSize; i++) {
+            if (ready) {
+                predictions[i] = surrogate.predict(positions, swarm.offset(i));
+                if (!(predictions[i] < thresholds[i])) {
+                    if (closest < 0 || predictions[i] - thresholds[i] < predictions[closest] - thresholds[closest])
+                        closest = i;
+                    fitness[i] = Double.POSITIVE_INFINITY;
+                    violation[i] = Double.POSITIVE_INFINITY;
+                    continue;
+                }
+            }
+            screened[screenedCount++] = i;
+        }
+        if (screenedCount == 0 && closest >= 0)
+            screened[screenedCount++] = closest;
+
+        int calls;
+        if (cache != null) {
+            calls = evaluateCached(executor, screened, screenedCount);
+        } else if (batchModel != null) {
+            evaluateBatch(screened, screenedCount);
+            calls = screenedCount;
+        } else {
+            executor.forEach(screenedCount, screenedTask);
+            calls = countModelCalls(screened, screenedCount);
+        }
+
+        for (int k = 0; k < screenedCount; k++) {
+            int i = screened[k];
+            surrogate.add(positions, swarm.offset(i), fitness[i]);
+            if (ready) {
+                screenedEvaluations++;
+                absoluteError += Math.abs(predictions[i] - fitness[i]);
+            }
+        }
+        if (ready)
+            savedEvaluations += swarmSize - screenedCount;
+        return calls;
+    }
+
+    private void evaluateBatch() {
+        int swarmSize = swarm.getSwarmSize();
+        int dim = swarm.getDimension();
+        batchModel.evalConstrBatch(swarm.getPositions(), swarmSize, dim, violation);
+        batchModel.evalObjBatch(swarm.getPositions(), swarmSize, dim, fitness);
+        for (int i = 0; i < swarmSize; i++) {
+            feasible[i] = violation[i] <= 0;
+            if (violation[i] > epsilon)
+                fitness[i] = violation[i] + PUNISHMENT;
+        }
+    }
+
+    /**
+     * Evaluate some of the particles in one batch, their positions are gathered into a buffer first.
+     * The buffers are allocated by the first call.
+     *
+     * @param indices the indices of the particles to evaluate
+     * @param count   the number of particles to evaluate
+     */
+    private void evaluateBatch(int[] indices, int count) {
+        int dim = swarm.getDimension();
+        if (batchPositions == null) {
+            this.batchPositions = new double[swarm.getSwarmSize() * dim];
+            this.batchFitness = new double[swarm.getSwarmSize()];
+            this.batchViolation = new double[swarm.getSwarmSize()];
+        }
+        for (int k = 0; k < count; k++) {
+            System.arraycopy(swarm.getPositions(), swarm.offset(indices[k]), batchPositions, k * dim, dim);
+        }
+        batchModel.evalConstrBatch(batchPositions, count, dim, batchViolation);
+        batchModel.evalObjBatch(batchPositions, count, dim, batchFitness);
+        for (int k = 0; k < count; k++) {
+            int i = indices[k];
+            violation[i] = batchViolation[k];
+            feasible[i] = violation[i] <= 0;
+            fitness[i] = violation[i] > epsilon ? violation[i] + PUNISHMENT : batchFitness[k];
+        }
+    }
+
+    /**
+     * Evaluate a single particle.
+     *
+     * @param i the index of the particle
+     */
+    public void evaluate(int i) {
+        Location location = swarm.location(i);
+        location.setConstrViolation(null);
+        if (deltaModel == null)
+            optModel.evalObjAndConstr(location, results[i]);
+        else
+            evaluateDelta(i, location);
+        EvalResult result = results[i];
+        double[] constrViolation = location.getConstrViolation();
+        if (constrViolation != null)
+            result.setViolation(PSOUtil.getViolation(constrViolation));
+        if (!isComplete(result)) { // an infeasible location within epsilon needs its objective
+            result.setObjective(optModel.evalObj(location));
+            if (deltaModel != null)
+                kept[i] = false;
+        }
+        apply(i);
+    }
+
+    /**
+     * Compare the location with the previous one of the particle, then keep the previous result if it has not
+     * moved, update it by {@link DeltaOptModel#evalDelta} if few dimensions have changed, or evaluate it in full.
+     */
+    private void evaluateDelta(int i, Location location) {
+        int n = swarm.getDimension();
+        int offset = swarm.offset(i);
+        double[] x = swarm.getPositions();
+        int[] indices = changed[i];
+        int changedCount = 0;
+        for (int j = 0; j < n; j++) {
+            if (x[offset + j] != previousPositions[offset + j])
+                indices[changedCount++] = j;
+        }
+
+        kept[i] = false;
+        if (!hasPrevious[i] || Double.isNaN(results[i].getObjective())
+                || changedCount > n * deltaModel.getMaxChangedRatio()) {
+            optModel.evalObjAndConstr(location, results[i]);
+        } else if (changedCount > 0) {
+            EvalResult previous = results[i];
+            results[i] = previousResults[i];
+            previousResults[i] = previous;
+            deltaModel.evalDelta(location, previousPositions, offset, previous, indices, changedCount, results[i]);
+        } else {
+            kept[i] = true;
+        }
+        remember(i);
+    }
+
+    /**
+     * Keep the location of the particle as the one described by its current result.
+     */
+    private void remember(int i) {
+        System.arraycopy(swarm.getPositions(), swarm.offset(i), previousPositions, swarm.offset(i), swarm.getDimension());
+        hasPrevious[i] = true;
+    }
+
+    /**
+     * Bind the evaluator to another model of the same dimension, the buffers are kept.
+     *
+     * @param optModel the model of the problem
+     */
+    void setOptModel(OptModel optModel) {
+        this.optModel = optModel;
+        this.batchModel = optModel instanceof BatchOptModel ? (BatchOptModel) optModel : null;
+        this.deltaModel = batchModel == null && optModel instanceof DeltaOptModel ? (DeltaOptModel) optModel : null;
+        if (deltaModel != null && previousPositions == null) {
+            int swarmSize = swarm.getSwarmSize();
+            this.previousPositions = new double[swarmSize * swarm.getDimension()];
+            this.previousResults = new EvalResult[swarmSize];
+            this.hasPrevious = new boolean[swarmSize];
+            this.kept = new boolean[swarmSize];
+            this.changed = new int[swarmSize][swarm.getDimension()];
+            for (int i = 0; i < swarmSize; i++) {
+                previousResults[i] = new EvalResult();
+            }
+        }
+        forgetPrevious();
+    }
+
+    /**
+     * Forget the previous locations, so that the next evaluation of every particle is in full.
+     * Call it when a run starts, in case the model has changed since the previous run.
+     */
+    public void forgetPrevious() {
+        if (hasPrevious != null)
+            Arrays.fill(hasPrevious, false);
+    }
+
+    /**
+     * Set the tolerance of the constraint violation, see {@link ConstraintHandler#getEpsilon(double, int, int)}.
+     *
+     * @param epsilon the tolerance
+     */
+    public void setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * Set the cache of binary locations, {@code null} to disable it.
+     * The positions of the swarm must be 0 or 1.
+     *
+     * @param cache the cache
+     */
+    public void setCache(EvalCache cache) {
+        this.cache = cache;
+        if (cache != null) {
+            this.cacheKeys = new long[swarm.getSwarmSize() * EvalCache.wordCount(swarm.getDimension())];
+            this.pending = new int[swarm.getSwarmSize()];
+        }
+    }
+
+    /**
+     * Pre-screen the particles with a surrogate, {@code null} to disable it.
+     *
+     * @param surrogate  the surrogate
+     * @param thresholds the fitness value each particle must be predicted to beat, usually pBest
+     */
+    public void setSurrogate(Surrogate surrogate, double[] thresholds) {
+        this.surrogate = surrogate;
+        this.thresholds = thresholds;
+        if (surrogate != null) {
+            this.predictions = new double[swarm.getSwarmSize()];
+            this.screened = new int[swarm.getSwarmSize()];
+        }
+    }
+
+    /**
+     * @return the number of model evaluations saved by the surrogate since the statistics were cleared
+     */
+    public long getSavedEvaluations() {
+        return savedEvaluations;
+    }
+
+    /**
+     * @return the mean absolute error of the predictions of the locations that were then evaluated by the model
+     */
+    public double getSurrogateError() {
+        return screenedEvaluations == 0 ? Double.NaN : absoluteError / screenedEvaluations;
+    }
+
+    public void clearStatistics() {
+        savedEvaluations = 0;
+        screenedEvaluations = 0;
+        absoluteError = 0;
+    }
+
+    /**
+     * @return whether the result has the objective function value, if it is needed
+     */
+    private boolean isComplete(EvalResult result) {
+        double violation = result.getViolation();
+        return violation <= 0 || violation > epsilon || !Double.isNaN(result.getObjective());
+    }
+
+    private void apply(int i) {
+        EvalResult result = results[i];
+        violation[i] = result.getViolation();
+        feasible[i] = violation[i] <= 0;
+        fitness[i] = violation[i] > epsilon ? violation[i] + PUNISHMENT : result.getObjective();
+    }
+}
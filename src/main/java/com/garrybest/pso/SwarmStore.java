@@ -0,0 +1,198 @@
+package com.garrybest.pso;
+
+import java.util.Arrays;
+
+/**
+ * Flat storage of a swarm. The positions, velocities and pBest positions of all
+ * particles are kept in one contiguous {@code double[swarmSize * n]} each, where the
+ * {@code j}-th dimension of the {@code i}-th particle is stored at {@code i * n + j}.
+ * The solvers update these arrays in place.
+ * <p>
+ * {@link Location} is only used as a read-only view at the {@link OptModel} boundary:
+ * every particle owns one preallocated view whose array is refreshed from the store
+ * before it is handed to the model, so a model writing into it cannot corrupt the swarm.
+ */
+public class SwarmStore {
+
+    private final int swarmSize;
+    private final int dimension;
+    private final double[] positions;
+    private final double[] velocities;
+    private final double[] pBestPositions;
+    private final double[] gBestPosition;
+    private final double[] sums;
+    private final double[] sumSquares;
+    private final Location[] views;
+    private final Location gBestView;
+
+    public SwarmStore(int swarmSize, int dimension) {
+        this.swarmSize = swarmSize;
+        this.dimension = dimension;
+        this.positions = new double[swarmSize * dimension];
+        this.velocities = new double[swarmSize * dimension];
+        this.pBestPositions = new double[swarmSize * dimension];
+        this.gBestPosition = new double[dimension];
+        this.sums = new double[dimension];
+        this.sumSquares = new double[dimension];
+        this.views = new Location[swarmSize];
+        for (int i = 0; i < swarmSize; i++) {
+            views[i] = new Location(new double[dimension]);
+        }
+        this.gBestView = new Location(gBestPosition);
+    }
+
+    public int getSwarmSize() {
+        return swarmSize;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * @param i the index of a particle
+     * @return the offset of the particle in the flat arrays
+     */
+    public int offset(int i) {
+        return i * dimension;
+    }
+
+    public double[] getPositions() {
+        return positions;
+    }
+
+    public double[] getVelocities() {
+        return velocities;
+    }
+
+    public double[] getpBestPositions() {
+        return pBestPositions;
+    }
+
+    public double[] getgBestPosition() {
+        return gBestPosition;
+    }
+
+    /**
+     * Get the view of the current position of a particle.
+     *
+     * @param i the index of a particle
+     * @return the location refreshed from the store
+     */
+    public Location location(int i) {
+        Location view = views[i];
+        System.arraycopy(positions, i * dimension, view.getLoc(), 0, dimension);
+        return view;
+    }
+
+    /**
+     * Get the view of the pBest position of a particle, it shares the buffer with {@link #location(int)}.
+     *
+     * @param i the index of a particle
+     * @return the location refreshed from the store
+     */
+    public Location pBestLocation(int i) {
+        Location view = views[i];
+        System.arraycopy(pBestPositions, i * dimension, view.getLoc(), 0, dimension);
+        return view;
+    }
+
+    /**
+     * @return the view of the gBest position, it always reflects the latest gBest
+     */
+    public Location getgBestLocation() {
+        return gBestView;
+    }
+
+    /**
+     * Copy the current position of a particle to its pBest position.
+     */
+    public void savePBest(int i) {
+        System.arraycopy(positions, i * dimension, pBestPositions, i * dimension, dimension);
+    }
+
+    /**
+     * Copy the current position of a particle to the gBest position.
+     */
+    public void saveGBest(int i) {
+        System.arraycopy(positions, i * dimension, gBestPosition, 0, dimension);
+    }
+
+    /**
+     * @return the largest Euclidean distance between a particle and the gBest position
+     */
+    public double getDiameter() {
+        double diameter = 0;
+        for (int i = 0; i < swarmSize; i++) {
+            int offset = i * dimension;
+            double distance = 0;
+            for (int j = 0; j < dimension; j++) {
+                double d = positions[offset + j] - gBestPosition[j];
+                distance += d * d;
+            }
+            diameter = Math.max(diameter, distance);
+        }
+        return Math.sqrt(diameter);
+    }
+
+    /**
+     * @return the largest Euclidean distance between a particle and the centroid of the swarm,
+     * for the solvers without a gBest position
+     */
+    public double getCentroidDiameter() {
+        updateMoments();
+        double diameter = 0;
+        for (int i = 0; i < swarmSize; i++) {
+            int offset = i * dimension;
+            double distance = 0;
+            for (int j = 0; j < dimension; j++) {
+                double d = positions[offset + j] - positions[j] - sums[j] / swarmSize; // the moments are relative to the first particle
+                distance += d * d;
+            }
+            diameter = Math.max(diameter, distance);
+        }
+        return Math.sqrt(diameter);
+    }
+
+    /**
+     * The diversity of the swarm, the root mean square Euclidean distance between a particle and the
+     * centroid of the swarm, i.e. the square root of the sum of the variances of the dimensions.
+     * The first and second moments of every dimension are accumulated in a single pass over the
+     * positions, and the diversity is derived from them in {@code O(n)}. The moments are taken around
+     * the position of the first particle, so they do not cancel out when the swarm has collapsed
+     * far from the origin.
+     *
+     * @return the diversity
+     */
+    public double getDiversity() {
+        updateMoments();
+        double diversity = 0;
+        for (int j = 0; j < dimension; j++) {
+            diversity += getVariance(j);
+        }
+        return Math.sqrt(diversity);
+    }
+
+    /**
+     * @param j the index of a dimension
+     * @return the variance of the positions in the dimension, as of the last {@link #getDiversity()}
+     */
+    public double getVariance(int j) {
+        double mean = sums[j] / swarmSize; // relative to the first particle
+        double variance = sumSquares[j] / swarmSize - mean * mean;
+        return variance > 0 ? variance : 0; // rounding may make it slightly negative
+    }
+
+    private void updateMoments() {
+        Arrays.fill(sums, 0);
+        Arrays.fill(sumSquares, 0);
+        for (int i = 0; i < swarmSize; i++) {
+            int offset = i * dimension;
+            for (int j = 0; j < dimension; j++) {
+                double x = positions[offset + j] - positions[j];
+                sums[j] += x;
+                sumSquares[j] += x * x;
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.garrybest.pso;
+
+/**
+ * Why a run of the solver stopped.
+ */
+public enum TerminationReason {
+    /**
+     * The maximum iteration times of the model is reached.
+     */
+    MAX_ITERATIONS,
+    /**
+     * gBest is feasible and below the tolerant fitness of the model.
+     */
+    TOLERANCE_FITNESS,
+    /**
+     * gBest has not improved for a number of iterations.
+     */
+    NO_IMPROVEMENT,
+    /**
+     * The relative improvement of gBest over a window of iterations is below a threshold.
+     */
+    RELATIVE_IMPROVEMENT,
+    /**
+     * The swarm has collapsed, its diameter is below a threshold.
+     */
+    SWARM_COLLAPSE,
+    /**
+     * The wall-clock budget is exhausted.
+     */
+    TIME_BUDGET,
+    /**
+     * The budget of model evaluations is exhausted.
+     */
+    EVALUATION_BUDGET,
+    /**
+     * The deadline of a job of {@link PsoSolverService} has passed.
+     */
+    DEADLINE,
+    /**
+     * A job of {@link PsoSolverService} has been cancelled.
+     */
+    CANCELLED,
+    /**
+     * A user-defined {@link StoppingCriterion} fired.
+     */
+    CUSTOM
+}
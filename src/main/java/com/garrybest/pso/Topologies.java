@@ -0,0 +1,104 @@
+package com.garrybest.pso;
+
+/**
+ * Factory of the built-in {@link Topology}s.
+ */
+public final class Topologies {
+
+    private static final Topology GLOBAL = new Topology(0) {
+        @Override
+        protected void connect(int swarmSize, RandomSource random, int[] informs) {
+        }
+
+        @Override
+        public boolean isGlobal() {
+            return true;
+        }
+
+        @Override
+        void initialize(AbstractPSO solver) {
+        }
+
+        @Override
+        void onPBestImproved(int i) {
+        }
+    };
+
+    private Topologies() {
+    }
+
+    /**
+     * Every particle is attracted by gBest, this is the default. It converges fast,
+     * but may converge prematurely on a multimodal model.
+     */
+    public static Topology global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Every particle is informed by its two neighbors in index order.
+     */
+    public static Topology ring() {
+        return new Topology(3) {
+            @Override
+            protected void connect(int swarmSize, RandomSource random, int[] informs) {
+                for (int i = 0; i < swarmSize; i++) {
+                    informs[i * 3] = i;
+                    informs[i * 3 + 1] = (i + swarmSize - 1) % swarmSize;
+                    informs[i * 3 + 2] = (i + 1) % swarmSize;
+                }
+            }
+        };
+    }
+
+    /**
+     * The particles are laid out on a wrapped grid of about {@code sqrt(swarmSize)} columns,
+     * and every particle is informed by its four neighbors on the grid.
+     */
+    public static Topology vonNeumann() {
+        return new Topology(5) {
+            @Override
+            protected void connect(int swarmSize, RandomSource random, int[] informs) {
+                int columns = (int) Math.ceil(Math.sqrt(swarmSize));
+                int rows = (swarmSize + columns - 1) / columns;
+                for (int i = 0; i < swarmSize; i++) {
+                    int row = i / columns;
+                    int column = i % columns;
+                    informs[i * 5] = i;
+                    informs[i * 5 + 1] = (((row + rows - 1) % rows) * columns + column) % swarmSize;
+                    informs[i * 5 + 2] = (((row + 1) % rows) * columns + column) % swarmSize;
+                    informs[i * 5 + 3] = (row * columns + (column + columns - 1) % columns) % swarmSize;
+                    informs[i * 5 + 4] = (row * columns + (column + 1) % columns) % swarmSize;
+                }
+            }
+        };
+    }
+
+    /**
+     * The adaptive random topology of SPSO: every particle informs {@code k} random particles,
+     * and the links are drawn again after every iteration that does not improve gBest.
+     *
+     * @param k the number of particles informed by each particle, 3 is usual
+     */
+    public static Topology randomK(int k) {
+        if (k <= 0)
+            throw new IllegalArgumentException("The number of informed particles must be positive: " + k);
+        return new Topology(k + 1) {
+            @Override
+            protected void connect(int swarmSize, RandomSource random, int[] informs) {
+                for (int i = 0; i < swarmSize; i++) {
+                    informs[i * (k + 1)] = i;
+                    for (int j = 1; j <= k; j++) {
+                        informs[i * (k + 1) + j] = random.nextInt(swarmSize);
+                    }
+                }
+            }
+
+            @Override
+            void onIterationEnd(boolean gBestImproved) {
+                if (!gBestImproved)
+                    rebuild();
+            }
+        };
+    }
+}
@@ -0,0 +1,108 @@
+package com.garrybest.pso;
+
+/**
+ * The neighborhood topology of a swarm, which decides which pBest attracts each particle in the
+ * social term of the velocity update. Every particle informs itself and {@code degree - 1} other particles,
+ * and the best pBest among the particles that inform a particle is its lbest.
+ * <p>
+ * The index of the lbest of every particle is kept up to date incrementally: when the pBest of a
+ * particle improves, only the particles it informs are checked, so an iteration costs
+ * {@code O(swarmSize * degree)}. A topology holds the state of one swarm, so do not share an instance
+ * between solvers. See {@link Topologies} for the built-in topologies.
+ */
+public abstract class Topology {
+
+    private final int degree;
+    private int[] informs;
+    private int[] lbest;
+    private AbstractPSO solver;
+
+    /**
+     * @param degree the number of particles informed by each particle, itself included
+     */
+    protected Topology(int degree) {
+        this.degree = degree;
+    }
+
+    /**
+     * Fill the particles informed by each particle.
+     *
+     * @param swarmSize the size of the swarm
+     * @param random    the random generator of the swarm
+     * @param informs   output, the particles informed by particle {@code i} are stored in
+     *                  {@code informs[i * degree, (i + 1) * degree)}, a duplicate is allowed
+     */
+    protected abstract void connect(int swarmSize, RandomSource random, int[] informs);
+
+    /**
+     * @return whether every particle is attracted by gBest, then the solver does not use lbest
+     */
+    public boolean isGlobal() {
+        return false;
+    }
+
+    public int getDegree() {
+        return degree;
+    }
+
+    /**
+     * Build the neighborhoods and find the lbest of every particle, call it once pBest is initialized.
+     *
+     * @param solver the solver owning the swarm
+     */
+    void initialize(AbstractPSO solver) {
+        this.solver = solver;
+        int swarmSize = solver.pBest.length;
+        if (lbest == null || lbest.length != swarmSize) {
+            informs = new int[swarmSize * degree];
+            lbest = new int[swarmSize];
+        }
+        rebuild();
+    }
+
+    /**
+     * Draw the neighborhoods again and recompute every lbest.
+     */
+    void rebuild() {
+        int swarmSize = lbest.length;
+        connect(swarmSize, solver.generator, informs);
+        for (int i = 0; i < swarmSize; i++) {
+            lbest[i] = i;
+        }
+        for (int i = 0; i < swarmSize; i++) {
+            onPBestImproved(i);
+        }
+    }
+
+    /**
+     * @param i the index of a particle
+     * @return the index of the particle whose pBest is the lbest of particle {@code i}
+     */
+    int getNeighborBest(int i) {
+        return lbest[i];
+    }
+
+    /**
+     * Called when the pBest of a particle improves.
+     *
+     * @param i the index of the particle
+     */
+    void onPBestImproved(int i) {
+        double[] pBest = solver.pBest;
+        double[] pBestViolation = solver.pBestViolation;
+        for (int k = i * degree; k < (i + 1) * degree; k++) {
+            int j = informs[k];
+            int best = lbest[j];
+            if (best != i && solver.isBetter(pBest[i], pBestViolation[i], pBest[best], pBestViolation[best]))
+                lbest[j] = i;
+        }
+    }
+
+    /**
+     * Called at the end of every iteration.
+     *
+     * @param gBestImproved whether gBest has improved in the iteration
+     */
+    void onIterationEnd(boolean gBestImproved) {
+    }
+}
@@ -3,6 +3,22 @@ package com.garrybest.pso;
 import com.garrybest.pso.model.*;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 /**
  * @Author: Fang Rui
  * @Date: 2018/6/20
@@ -23,4 +39,655 @@ public class PsoTest {
         new HybridPSO(new DifficultModel_3()).execute();
     }
 
+    @Test
+    public void testParallelEvaluation() {
+        try (EvaluationExecutor executor = EvaluationExecutors.fixedThreadPool(4)) {
+            HybridPSO pso = new HybridPSO(new DifficultModel_1());
+            pso.setEvaluationExecutor(executor);
+            pso.execute();
+            assertTrue(pso.isGBestfeasible());
+        }
+        HybridPSO pso = new HybridPSO(new DifficultModel_2());
+        pso.setEvaluationExecutor(EvaluationExecutors.forkJoin());
+        pso.execute();
+        assertTrue(pso.isGBestfeasible());
+    }
+
+    @Test
+    public void testBatchEvaluation() {
+        HybridPSO pso = new HybridPSO(new BatchModel_2(), 20);
+        pso.setSeed(1);
+        pso.execute();
+        assertTrue(pso.isGBestfeasible());
+        assertEquals(-2.0294, pso.getgBest(), 0.05);
+    }
+
+    @Test
+    public void testFusedEvaluation() {
+        HybridPSO pso = new HybridPSO(new SimpleModel_2() {
+            @Override
+            public double evalObj(Location location) {
+                throw new AssertionError("The fused evaluation should be used");
+            }
+
+            @Override
+            public void evalObjAndConstr(Location location, EvalResult result) {
+                result.setViolation(super.evalConstr(location));
+                result.setObjective(super.evalObj(location));
+            }
+        }, 20);
+        pso.setSeed(1);
+        pso.execute();
+        assertEquals(-2.0294, pso.getgBest(), 0.05);
+    }
+
+    @Test
+    public void testBinaryEvalCache() {
+        BinaryPSO pso = new BinaryPSO(new BinaryModel_1());
+        EvalCache cache = new EvalCache(256, 15);
+        pso.setEvalCache(cache);
+        pso.execute();
+        assertTrue(pso.isGBestfeasible());
+        assertTrue(cache.getHits() > 0);
+        assertTrue(cache.size() <= 256);
+
+        // an entry without the objective function value is a miss when the objective is needed
+        cache = new EvalCache(4, 15);
+        long[] key = new long[1];
+        EvalResult result = new EvalResult();
+        result.setObjective(Double.NaN);
+        result.setViolation(0.5);
+        cache.put(key, 0, result);
+        assertTrue(!cache.get(key, 0, result, 1));
+        assertEquals(0, cache.getHits());
+        assertTrue(cache.get(key, 0, result, 0.1));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testDeltaEvaluation() {
+        BinaryPSO pso = new BinaryPSO(new BinaryModel_1());
+        pso.setSeed(7);
+        pso.execute();
+
+        DeltaModel_1 model = new DeltaModel_1();
+        BinaryPSO delta = new BinaryPSO(model);
+        delta.setSeed(7);
+        delta.execute();
+        assertEquals(pso.getgBest(), delta.getgBest(), 0);
+        assertEquals(pso.getIterNum(), delta.getIterNum());
+        assertTrue(model.getDeltaEvaluations() > 0);
+        assertEquals(model.getFullEvaluations() + model.getDeltaEvaluations(), delta.getEvaluations());
+
+        // a particle that has not moved keeps its result without calling the model
+        int n = model.getDimentions();
+        SwarmStore store = new SwarmStore(4, n);
+        SwarmEvaluator evaluator = new SwarmEvaluator(model, store, new double[4], new boolean[4], new double[4]);
+        assertEquals(4, evaluator.evaluate(EvaluationExecutors.sequential()));
+        store.getPositions()[n] = 1;
+        int deltaEvaluations = model.getDeltaEvaluations();
+        assertEquals(1, evaluator.evaluate(EvaluationExecutors.sequential()));
+        assertEquals(deltaEvaluations + 1, model.getDeltaEvaluations());
+    }
+
+    @Test
+    public void testPackedBinaryPso() {
+        PackedBinaryPSO pso = new PackedBinaryPSO(new BinaryModel_1());
+        pso.execute();
+        assertTrue(pso.isGBestfeasible());
+        assertTrue(pso.getgBest() < -1400);
+    }
+
+    @Test
+    public void testIslandPso() {
+        IslandPSO pso = new IslandPSO(new DifficultModel_1(), 4, 20, 20, MigrationTopology.RING);
+        pso.execute();
+        assertTrue(pso.isGBestfeasible());
+        new IslandPSO(new SimpleModel_1(), 3, 10, 50, MigrationTopology.FULLY_CONNECTED).execute();
+
+        // the islands can be initialized outside of execute, the island solver keeps no particle itself
+        pso = new IslandPSO(new SimpleModel_1(), 2, 10, 20, MigrationTopology.RING);
+        pso.initializeSwarm();
+        pso.shutdown();
+        assertEquals(pso.getIslands()[0].getEvaluations() + pso.getIslands()[1].getEvaluations(), pso.getEvaluations());
+        assertTrue(pso.getgBest() < Double.POSITIVE_INFINITY);
+        assertEquals(0, pso.pBest.length);
+    }
+
+    @Test
+    public void testStoppingCriteria() {
+        HybridPSO pso = new HybridPSO(new SimpleModel_1());
+        pso.addStoppingCriterion(StoppingCriteria.noImprovement(50));
+        pso.execute();
+        assertEquals(TerminationReason.NO_IMPROVEMENT, pso.getTerminationReason());
+        assertTrue(pso.getIterNum() < 1000);
+
+        pso = new HybridPSO(new DifficultModel_1());
+        pso.addStoppingCriterion(StoppingCriteria.evaluationBudget(2000));
+        pso.execute();
+        assertEquals(TerminationReason.EVALUATION_BUDGET, pso.getTerminationReason());
+        assertTrue(pso.getEvaluations() >= 2000);
+
+        pso = new HybridPSO(new DifficultModel_3());
+        pso.execute();
+        assertEquals(TerminationReason.MAX_ITERATIONS, pso.getTerminationReason());
+
+        IslandPSO islands = new IslandPSO(new SimpleModel_1(), 3, 10, 20, MigrationTopology.RING);
+        islands.addStoppingCriterion(StoppingCriteria.swarmCollapse(1));
+        islands.execute();
+        assertEquals(TerminationReason.SWARM_COLLAPSE, islands.getTerminationReason());
+        assertTrue(islands.getIterNum() < 1000);
+
+        // the islands check the criteria every 20 iterations, the window is not a multiple of it
+        islands = new IslandPSO(new DifficultModel_3(), 3, 20, 20, MigrationTopology.RING);
+        islands.addStoppingCriterion(StoppingCriteria.relativeImprovement(1e-3, 50));
+        islands.execute();
+        assertEquals(TerminationReason.RELATIVE_IMPROVEMENT, islands.getTerminationReason());
+        assertTrue(islands.getIterNum() < 1000);
+    }
+
+    @Test
+    public void testSolverListener() {
+        int[] counts = new int[3];
+        long[] evaluationNanos = new long[1];
+        HybridPSO pso = new HybridPSO(new DifficultModel_1());
+        pso.addListener(new SolverListener() {
+            @Override
+            public void onIterationEnd(AbstractPSO solver, SolverMetrics metrics) {
+                counts[0]++;
+                assertEquals(solver.getEvaluations(), metrics.getTotalEvaluations());
+                assertTrue(metrics.getFeasibleRatio() >= 0 && metrics.getFeasibleRatio() <= 1);
+                evaluationNanos[0] += metrics.getPhaseNanos(SolverMetrics.Phase.EVALUATION);
+            }
+
+            @Override
+            public void onImprovement(AbstractPSO solver, double previous, double current) {
+                counts[1]++;
+                assertTrue(current < previous);
+            }
+
+            @Override
+            public void onTermination(AbstractPSO solver, TerminationReason reason) {
+                counts[2]++;
+                assertEquals(solver.getTerminationReason(), reason);
+            }
+        });
+        try (JmxSolverListener jmx = new JmxSolverListener("test")) {
+            pso.addListener(jmx);
+            pso.execute();
+            assertEquals(pso.getIterNum(), jmx.getIteration());
+            assertEquals(pso.getTerminationReason().name(), jmx.getTerminationReason());
+        }
+        assertEquals(pso.getIterNum(), counts[0]);
+        assertTrue(counts[1] > 0);
+        assertEquals(1, counts[2]);
+        assertTrue(evaluationNanos[0] > 0);
+    }
+
+    @Test
+    public void testCheckpoint() throws IOException {
+        Path checkpoint = Files.createTempFile("pso", ".checkpoint");
+        try {
+            HybridPSO pso = new HybridPSO(new DifficultModel_1());
+            pso.initializeSwarm();
+            pso.run(300);
+            pso.saveCheckpoint(checkpoint);
+            pso.run(pso.maxIter);
+
+            HybridPSO resumed = new HybridPSO(new DifficultModel_1());
+            resumed.resume(checkpoint);
+            assertEquals(pso.getIterNum(), resumed.getIterNum());
+            assertEquals(pso.getEvaluations(), resumed.getEvaluations());
+            assertEquals(pso.getgBest(), resumed.getgBest(), 0);
+            assertArrayEquals(pso.getgBestLocation().getLoc(), resumed.getgBestLocation().getLoc(), 0);
+
+            // the state of an adaptive controller is resumed too
+            for (int k = 0; k < 2; k++) {
+                pso = new HybridPSO(new DifficultModel_2());
+                pso.setParameterController(k == 0 ? ParameterControllers.successRateInertia() : ParameterControllers.diversityMutation());
+                pso.initializeSwarm();
+                pso.run(100);
+                pso.saveCheckpoint(checkpoint);
+                pso.run(pso.maxIter);
+                resumed = new HybridPSO(new DifficultModel_2());
+                resumed.setParameterController(k == 0 ? ParameterControllers.successRateInertia() : ParameterControllers.diversityMutation());
+                resumed.resume(checkpoint);
+                assertEquals(pso.getgBest(), resumed.getgBest(), 0);
+                assertArrayEquals(pso.swarm.getPositions(), resumed.swarm.getPositions(), 0);
+            }
+
+            // a corrupted length of the controller state, or another controller, is rejected
+            byte[] bytes = Files.readAllBytes(checkpoint);
+            for (int length : new int[]{-1, Integer.MAX_VALUE, 2}) {
+                ByteBuffer.wrap(bytes).putInt(72, length);
+                Files.write(checkpoint, bytes);
+                resumed = new HybridPSO(new DifficultModel_2());
+                resumed.setParameterController(ParameterControllers.diversityMutation());
+                assertCorrupted(resumed, checkpoint);
+            }
+            ByteBuffer.wrap(bytes).putInt(72, 1);
+            Files.write(checkpoint, bytes);
+            assertCorrupted(new HybridPSO(new DifficultModel_2()), checkpoint);
+        } finally {
+            Files.deleteIfExists(checkpoint);
+        }
+    }
+
+    private static void assertCorrupted(HybridPSO solver, Path checkpoint) throws IOException {
+        try {
+            solver.resume(checkpoint);
+        } catch (StreamCorruptedException e) {
+            return;
+        }
+        throw new AssertionError("The checkpoint should be rejected");
+    }
+
+    @Test
+    public void testSeededRuns() {
+        HybridPSO pso = new HybridPSO(new DifficultModel_2());
+        pso.setSeed(42);
+        pso.execute();
+        HybridPSO parallel = new HybridPSO(new DifficultModel_2());
+        parallel.setSeed(42);
+        parallel.setEvaluationExecutor(EvaluationExecutors.forkJoin());
+        parallel.execute();
+        assertEquals(pso.getgBest(), parallel.getgBest(), 0);
+        assertArrayEquals(pso.getgBestLocation().getLoc(), parallel.getgBestLocation().getLoc(), 0);
+
+        IslandPSO islands = new IslandPSO(new DifficultModel_1(), 3, 20, 10, MigrationTopology.RING);
+        islands.setSeed(7);
+        islands.execute();
+        IslandPSO other = new IslandPSO(new DifficultModel_1(), 3, 20, 10, MigrationTopology.RING);
+        other.setSeed(7);
+        other.execute();
+        assertEquals(islands.getgBest(), other.getgBest(), 0);
+    }
+
+    @Test
+    public void testTopologies() {
+        for (Topology topology : new Topology[]{Topologies.ring(), Topologies.vonNeumann(), Topologies.randomK(3)}) {
+            HybridPSO pso = new HybridPSO(new DifficultModel_2(), 30);
+            pso.setSeed(3);
+            pso.setTopology(topology);
+            pso.execute();
+            assertTrue(pso.isGBestfeasible());
+
+            // the lbest kept incrementally is the one found from scratch
+            double[] lbest = new double[30];
+            for (int i = 0; i < lbest.length; i++) {
+                lbest[i] = pso.pBest[topology.getNeighborBest(i)];
+                assertTrue(lbest[i] <= pso.pBest[i]);
+            }
+            if (topology.getDegree() != 4) { // the random topology draws new neighborhoods
+                topology.rebuild();
+                for (int i = 0; i < lbest.length; i++) {
+                    assertEquals(lbest[i], pso.pBest[topology.getNeighborBest(i)], 0);
+                }
+            }
+        }
+
+        BinaryPSO binary = new BinaryPSO(new BinaryModel_1());
+        binary.setSeed(3);
+        binary.setTopology(Topologies.ring());
+        binary.execute();
+        assertTrue(binary.isGBestfeasible());
+    }
+
+    @Test
+    public void testParameterControllers() {
+        ParameterController[] controllers = {ParameterControllers.successRateInertia(),
+                ParameterControllers.diversityMutation(), ParameterControllers.constriction()};
+        for (ParameterController controller : controllers) {
+            HybridPSO pso = new HybridPSO(new DifficultModel_3());
+            pso.setSeed(5);
+            pso.setParameterController(controller);
+            pso.execute();
+            assertTrue(pso.isGBestfeasible());
+            assertTrue(controller.getInertia() > 0 && controller.getInertia() < 1);
+        }
+
+        ParameterController constriction = ParameterControllers.constriction();
+        BinaryPSO binary = new BinaryPSO(new BinaryModel_1());
+        binary.setParameterController(constriction);
+        binary.execute();
+        assertEquals(0.7298, constriction.getInertia(), 1e-4);
+        assertEquals(1.4962, constriction.getSocial(), 1e-4);
+
+        IslandPSO islands = new IslandPSO(new DifficultModel_3(), 3, 20, 20, MigrationTopology.RING);
+        islands.setParameterController(ParameterControllers::successRateInertia);
+        islands.execute();
+        assertTrue(islands.isGBestfeasible());
+        HybridPSO[] each = islands.getIslands();
+        assertTrue(each[0].parameterController != each[1].parameterController);
+        assertTrue(each[1].parameterController != each[2].parameterController);
+    }
+
+    @Test
+    public void testRestart() {
+        // a swarm collapsed to a point far from the origin
+        HybridPSO collapsed = new HybridPSO(new DifficultModel_3() {
+            @Override
+            public double[] getMinLoc() {
+                return new double[]{1e8 - 1, 1e8 - 1};
+            }
+
+            @Override
+            public double[] getMaxLoc() {
+                return new double[]{1e8 + 1, 1e8 + 1};
+            }
+        }, 20);
+        collapsed.setSeed(5);
+        collapsed.setRestart(1e-3, 0.5);
+        collapsed.initializeSwarm();
+        double[] x = collapsed.swarm.getPositions();
+        double[] centroid = new double[2];
+        for (int i = 0; i < 20; i++) {
+            for (int j = 0; j < 2; j++) {
+                x[2 * i + j] = 1e8 + 1e-6 * i;
+                centroid[j] += x[2 * i + j] / 20;
+            }
+        }
+        double squares = 0;
+        for (int i = 0; i < x.length; i++) {
+            squares += (x[i] - centroid[i % 2]) * (x[i] - centroid[i % 2]);
+        }
+        assertEquals(Math.sqrt(squares / 20), collapsed.getSwarmDiversity(), 1e-9);
+
+        int restartSize = collapsed.getRestartSize();
+        assertEquals(10, restartSize);
+        collapsed.restart(restartSize);
+        assertEquals(1, collapsed.getRestarts());
+        int reseeded = 0;
+        for (int i = 0; i < 20; i++) {
+            if (Math.abs(x[2 * i] - 1e8) > 1e-4)
+                reseeded++;
+        }
+        assertEquals(10, reseeded);
+        assertTrue(collapsed.getSwarmDiversity() > 1e-3 * collapsed.searchDiagonal);
+        assertEquals(0, collapsed.getRestartSize());
+
+        HybridPSO pso = new HybridPSO(new DifficultModel_2());
+        pso.setSeed(5);
+        pso.setRestart(1e-2, 0.5);
+        pso.execute();
+        assertTrue(pso.getRestarts() > 0);
+        assertTrue(pso.isGBestfeasible());
+
+        BinaryPSO binary = new BinaryPSO(new BinaryModel_1());
+        binary.setRestart(0.05, 0.5);
+        binary.execute();
+        assertTrue(binary.isGBestfeasible());
+
+        PackedBinaryPSO packed = new PackedBinaryPSO(new BinaryModel_1());
+        packed.setSeed(5);
+        packed.setRestart(0.4, 0.5);
+        packed.execute();
+        assertTrue(packed.getRestarts() > 0);
+        assertTrue(packed.isGBestfeasible());
+
+        // the restart check, the controller and the metrics share one diversity pass per iteration
+        int[] passes = new int[1];
+        pso = new HybridPSO(new DifficultModel_2()) {
+            @Override
+            public double getSwarmDiversity() {
+                passes[0]++;
+                return super.getSwarmDiversity();
+            }
+        };
+        pso.setSeed(5);
+        pso.setRestart(1e-2, 0.5);
+        pso.setParameterController(ParameterControllers.diversityMutation());
+        pso.addListener(new SolverListener() {
+        });
+        pso.execute();
+        assertTrue(pso.getRestarts() > 0);
+        assertEquals(1 + pso.getIterNum() + pso.getRestarts(), passes[0]);
+    }
+
+    @Test
+    public void testMopso() {
+        MOPSO pso = new MOPSO(new ParetoModel_1(), 50, 40);
+        pso.setSeed(1);
+        pso.execute();
+        ParetoArchive archive = pso.getArchive();
+        assertTrue(archive.size() > 0 && archive.size() <= 40);
+        for (int k = 0; k < archive.size(); k++) {
+            double[] f = archive.getObjectives(k);
+            assertEquals(1 - Math.sqrt(f[0]), f[1], 0.05); // close to the true front
+            assertTrue(!archive.add(archive.getPosition(k), 0, new double[]{f[0] + 1e-3, f[1]}, 0, 0)); // dominated
+        }
+        double[] origin = new double[10];
+        assertTrue(archive.add(origin, 0, new double[]{-1, -1}, 0, 0)); // dominates everything
+        assertEquals(1, archive.size());
+
+        // the insertions into the archive are the progress, not the missing gBest
+        MOPSO stopped = new MOPSO(new ParetoModel_1(), 50, 40);
+        stopped.setSeed(1);
+        stopped.addStoppingCriterion(StoppingCriteria.noImprovement(5));
+        long[] improvements = new long[1];
+        stopped.addListener(new SolverListener() {
+            @Override
+            public void onImprovement(AbstractPSO solver, double previous, double current) {
+                improvements[0]++;
+            }
+        });
+        stopped.execute();
+        assertTrue(stopped.getImprovements() > 0);
+        assertTrue(improvements[0] > 0);
+        assertTrue(stopped.getIterNum() > 5);
+
+        // the diameter is measured from the centroid
+        double[] x = stopped.swarm.getPositions();
+        int n = stopped.swarm.getDimension();
+        double[] centroid = new double[n];
+        for (int i = 0; i < 50; i++) {
+            for (int j = 0; j < n; j++) {
+                centroid[j] += x[i * n + j] / 50;
+            }
+        }
+        double diameter = 0;
+        for (int i = 0; i < 50; i++) {
+            double distance = 0;
+            for (int j = 0; j < n; j++) {
+                distance += (x[i * n + j] - centroid[j]) * (x[i * n + j] - centroid[j]);
+            }
+            diameter = Math.max(diameter, Math.sqrt(distance));
+        }
+        assertEquals(diameter, stopped.getSwarmDiameter(), 1e-9);
+
+        try {
+            stopped.solve();
+            throw new AssertionError("There is no single best solution to return");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            stopped.addStoppingCriterion(StoppingCriteria.relativeImprovement(1e-6, 10));
+            throw new AssertionError("There is no gBest to compare");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSurrogate() {
+        HybridPSO pso = new HybridPSO(new SimpleModel_1(), 20);
+        pso.setSeed(1);
+        pso.setSurrogate(new KnnSurrogate(new SimpleModel_1().getDimentions()));
+        pso.execute();
+        assertTrue(pso.isGBestfeasible());
+        assertTrue(pso.getSavedEvaluations() > 0);
+        assertEquals(20L * (pso.getIterNum() + 1), pso.getEvaluations() + pso.getSavedEvaluations());
+        assertTrue(pso.getSurrogateError() >= 0);
+
+        // the trained surrogate must not screen the initial swarm of the next run
+        pso.setSeed(1);
+        pso.initializeSwarm();
+        assertEquals(20L, pso.getEvaluations());
+        assertEquals(0L, pso.getSavedEvaluations());
+        for (double value : pso.pBest) {
+            assertTrue(value < Double.POSITIVE_INFINITY);
+        }
+        pso.execute();
+        assertTrue(pso.isGBestfeasible());
+        assertEquals(20L * (pso.getIterNum() + 1), pso.getEvaluations() + pso.getSavedEvaluations());
+        assertEquals(1, pso.getFeasibleRatio(), 0); // a screened particle is not infeasible
+
+        // the promising particles are still evaluated in a batch
+        HybridPSO batch = new HybridPSO(new BatchModel_2() {
+            @Override
+            public void evalObjAndConstr(Location location, EvalResult result) {
+                throw new AssertionError("The batch evaluation should be used");
+            }
+        }, 20);
+        batch.setSeed(1);
+        batch.setSurrogate(new KnnSurrogate(new BatchModel_2().getDimentions()));
+        batch.execute();
+        assertTrue(batch.getSavedEvaluations() > 0);
+        assertTrue(batch.isGBestfeasible());
+        assertEquals(-2.0294, batch.getgBest(), 0.05);
+    }
+
+    @Test
+    public void testSolveResult() {
+        HybridPSO pso = new HybridPSO(new SimpleModel_1(), 20);
+        pso.setSeed(3);
+        pso.setTraceConvergence(true);
+        SolveResult first = pso.solve();
+        double[] trace = first.getConvergenceTrace();
+        assertEquals(first.getIterations(), trace.length);
+        assertEquals(first.getBestFitness(), trace[trace.length - 1], 0);
+        assertTrue(first.getWallTimeNanos() > 0);
+        assertEquals(0, pso.metrics.getIteration()); // the trace alone does not collect the metrics
+        double[] position = first.getBestPosition();
+
+        pso.reset(new DifficultModel_3());
+        pso.setSeed(3);
+        SolveResult second = pso.solve();
+        assertEquals(0, second.getConvergenceTrace().length);
+        assertArrayEquals(position, first.getBestPosition(), 0);
+
+        HybridPSO fresh = new HybridPSO(new DifficultModel_3(), 20);
+        fresh.setSeed(3);
+        assertEquals(fresh.solve().getBestFitness(), second.getBestFitness(), 0);
+
+        // an infeasible gBest within epsilon is not feasible, even if another particle has been
+        for (int seed = 0; seed < 10; seed++) {
+            HybridPSO constrained = new HybridPSO(new DifficultModel_1());
+            constrained.setSeed(seed);
+            constrained.setConstraintHandler(ConstraintHandlers.epsilon());
+            constrained.addStoppingCriterion(StoppingCriteria.evaluationBudget(200));
+            SolveResult result = constrained.solve();
+            assertEquals(result.getBestViolation() <= 0, result.isFeasible());
+        }
+    }
+
+    @Test
+    public void testSolverService() throws Exception {
+        HybridPSO pso = new HybridPSO(new SimpleModel_1(), 20);
+        pso.setSeed(3);
+        pso.execute();
+
+        try (PsoSolverService service = new PsoSolverService(2, 16)) {
+            List<CompletableFuture<SolveResult>> futures = new ArrayList<>();
+            for (int k = 0; k < 6; k++) {
+                futures.add(service.submit(new SimpleModel_1(), 20, solver -> solver.setSeed(3), 0, TimeUnit.SECONDS));
+            }
+            for (CompletableFuture<SolveResult> future : futures) { // the recycled solvers run like a new one
+                SolveResult result = future.get();
+                assertEquals(pso.getgBest(), result.getBestFitness(), 0);
+                assertEquals(pso.getIterNum(), result.getIterations());
+                assertArrayEquals(pso.getgBestLocation().getLoc(), result.getBestPosition(), 0);
+            }
+
+            SolveResult late = service.submit(new DifficultModel_3(), 20,
+                    solver -> solver.addListener(new SolverListener() {
+                        @Override
+                        public void onIterationEnd(AbstractPSO solver, SolverMetrics metrics) {
+                            LockSupport.parkNanos(1_000_000);
+                        }
+                    }), 50, TimeUnit.MILLISECONDS).get();
+            assertEquals(TerminationReason.DEADLINE, late.getTerminationReason());
+
+            CountDownLatch cancel = new CountDownLatch(1); // the job cannot finish before it is cancelled
+            CompletableFuture<SolveResult> cancelled = service.submit(new DifficultModel_3(), 20, solver -> {
+                try {
+                    cancel.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, 0, TimeUnit.SECONDS);
+            assertTrue(cancelled.cancel(false));
+            cancel.countDown();
+            assertTrue(cancelled.isCancelled());
+            assertEquals(pso.getgBest(), service.submit(new SimpleModel_1(), 20, solver -> solver.setSeed(3), 0,
+                    TimeUnit.SECONDS).get().getBestFitness(), 0);
+        }
+    }
+
+    @Test
+    public void testConstraintHandling() {
+        HybridPSO pso = new HybridPSO(new DifficultModel_1());
+        pso.setConstraintHandler(ConstraintHandlers.epsilon());
+        pso.execute();
+        assertTrue(pso.isGBestfeasible());
+        assertEquals(0, pso.getgBestViolation(), 0);
+
+        // an infeasible gBest within epsilon can be below the tolerant fitness, it must not stop the run
+        for (int seed = 0; seed < 10; seed++) {
+            pso = new HybridPSO(new DifficultModel_1() {
+                @Override
+                public double getTolFitness() {
+                    return -15;
+                }
+            });
+            pso.setSeed(seed);
+            pso.setConstraintHandler(ConstraintHandlers.epsilon());
+            pso.execute();
+            if (pso.getTerminationReason() == TerminationReason.TOLERANCE_FITNESS)
+                assertEquals(0, pso.getgBestViolation(), 0);
+        }
+
+        // the same constraints reported one by one
+        pso = new HybridPSO(new DifficultModel_1() {
+            @Override
+            public double evalConstr(Location location) {
+                double[] x = location.getLoc();
+                location.setConstrViolation(new double[]{
+                        2 * x[0] + 2 * x[1] + x[9] + x[10] - 10,
+                        2 * x[0] + 2 * x[2] + x[9] + x[11] - 10,
+                        2 * x[1] + 2 * x[2] + x[10] + x[11] - 10,
+                        -8 * x[0] + x[9],
+                        -8 * x[1] + x[10],
+                        -8 * x[2] + x[11],
+                        -2 * x[3] - x[4] + x[9],
+                        -2 * x[5] - x[6] + x[10],
+                        -2 * x[7] - x[8] + x[11]
+                });
+                return 0;
+            }
+        });
+        pso.setConstraintHandler(ConstraintHandlers.feasibilityRules());
+        pso.execute();
+        assertEquals(0, pso.getgBestViolation(), 0);
+        assertTrue(pso.getgBest() >= -15.0001);
+    }
+
+    @Test
+    public void testAsyncPso() {
+        AsyncPSO pso = new AsyncPSO(new DifficultModel_2(), 20, 4);
+        int[] iterations = new int[1];
+        pso.addListener(new SolverListener() {
+            @Override
+            public void onIterationEnd(AbstractPSO solver, SolverMetrics metrics) {
+                iterations[0]++;
+            }
+        });
+        pso.execute();
+        assertTrue(pso.isGBestfeasible());
+        assertEquals(TerminationReason.MAX_ITERATIONS, pso.getTerminationReason());
+        assertTrue(iterations[0] > 0 && iterations[0] <= pso.getIterNum());
+        assertTrue(pso.getEvaluations() >= 20L * new DifficultModel_2().getMaxIter());
+    }
+
 }
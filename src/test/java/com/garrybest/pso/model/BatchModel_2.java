@@ -0,0 +1,32 @@
+package com.garrybest.pso.model;
+
+import com.garrybest.pso.*;
+
+/**
+ * {@link SimpleModel_2} evaluated over the whole swarm at once.
+ */
+public class BatchModel_2 extends SimpleModel_2 implements BatchOptModel {
+
+    @Override
+    public void evalObjBatch(double[] positions, int swarmSize, int dim, double[] out) {
+        for (int i = 0; i < swarmSize; i++) {
+            double x0 = positions[i * dim];
+            double x1 = positions[i * dim + 1];
+            out[i] = -x0 - 2 * x1 + 0.5 * x0 * x0 + 0.5 * x1 * x1;
+        }
+    }
+
+    @Override
+    public void evalConstrBatch(double[] positions, int swarmSize, int dim, double[] out) {
+        for (int i = 0; i < swarmSize; i++) {
+            double x0 = positions[i * dim];
+            double x1 = positions[i * dim + 1];
+            double constr = 0;
+            if (2 * x0 + 3 * x1 - 6 > 0)
+                constr += 2 * x0 + 3 * x1 - 6;
+            if (x0 + 4 * x1 - 5 > 0)
+                constr += x0 + 4 * x1 - 5;
+            out[i] = constr;
+        }
+    }
+}
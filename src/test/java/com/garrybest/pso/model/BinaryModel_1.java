@@ -0,0 +1,68 @@
+package com.garrybest.pso.model;
+
+import com.garrybest.pso.*;
+
+/**
+ * A 0-1 knapsack problem, the best value is 1458.
+ * max sum(v_i * x_i), s.t. sum(w_i * x_i) <= 750, x_i in {0, 1}
+ * It can be solved by both {@link BinaryPSO} and {@link PackedBinaryPSO}.
+ */
+public class BinaryModel_1 implements OptModel, BitOptModel {
+
+    private static final double[] VALUE = {135, 139, 149, 150, 156, 163, 173, 184, 192, 201, 210, 214, 221, 229, 240};
+    private static final double[] WEIGHT = {70, 73, 77, 80, 82, 87, 90, 94, 98, 106, 110, 113, 115, 118, 120};
+    private static final double CAPACITY = 750;
+
+    @Override
+    public double evalObj(Location location) {
+        double[] x = location.getLoc();
+        double obj = 0;
+        for (int i = 0; i < VALUE.length; i++) {
+            obj -= VALUE[i] * x[i];
+        }
+        return obj;
+    }
+
+    @Override
+    public double evalConstr(Location location) {
+        double[] x = location.getLoc();
+        double weight = 0;
+        for (int i = 0; i < WEIGHT.length; i++) {
+            weight += WEIGHT[i] * x[i];
+        }
+        return weight > CAPACITY ? weight - CAPACITY : 0;
+    }
+
+    @Override
+    public double evalObj(BitLocation location) {
+        double obj = 0;
+        for (int i = 0; i < VALUE.length; i++) {
+            obj -= VALUE[i] * location.getBit(i);
+        }
+        return obj;
+    }
+
+    @Override
+    public double evalConstr(BitLocation location) {
+        double weight = 0;
+        for (int i = 0; i < WEIGHT.length; i++) {
+            weight += WEIGHT[i] * location.getBit(i);
+        }
+        return weight > CAPACITY ? weight - CAPACITY : 0;
+    }
+
+    @Override
+    public int getDimentions() {
+        return VALUE.length;
+    }
+
+    @Override
+    public int getMaxIter() {
+        return 500;
+    }
+
+    @Override
+    public double getTolFitness() {
+        return -99999;
+    }
+}
@@ -0,0 +1,44 @@
+package com.garrybest.pso.model;
+
+import com.garrybest.pso.*;
+
+/**
+ * The knapsack problem of {@link BinaryModel_1}, the objective function value is updated from
+ * the flipped bits only. The values are integers, so the update is exact.
+ */
+public class DeltaModel_1 extends BinaryModel_1 implements DeltaOptModel {
+
+    private static final double[] VALUE = {135, 139, 149, 150, 156, 163, 173, 184, 192, 201, 210, 214, 221, 229, 240};
+
+    private int fullEvaluations;
+    private int deltaEvaluations;
+
+    @Override
+    public synchronized void evalObjAndConstr(Location location, EvalResult result) {
+        fullEvaluations++;
+        super.evalObjAndConstr(location, result);
+    }
+
+    @Override
+    public synchronized void evalDelta(Location location, double[] previous, int offset, EvalResult previousResult,
+                                       int[] changed, int changedCount, EvalResult result) {
+        deltaEvaluations++;
+        double[] x = location.getLoc();
+        double obj = previousResult.getObjective();
+        for (int k = 0; k < changedCount; k++) {
+            int j = changed[k];
+            obj -= VALUE[j] * (x[j] - previous[offset + j]);
+        }
+        double violation = evalConstr(location);
+        result.setViolation(violation);
+        result.setObjective(violation > 0 ? Double.NaN : obj);
+    }
+
+    public int getFullEvaluations() {
+        return fullEvaluations;
+    }
+
+    public int getDeltaEvaluations() {
+        return deltaEvaluations;
+    }
+}
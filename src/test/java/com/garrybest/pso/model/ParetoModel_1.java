@@ -0,0 +1,66 @@
+package com.garrybest.pso.model;
+
+import com.garrybest.pso.*;
+
+import java.util.Arrays;
+
+/**
+ * ZDT1, the Pareto front is {@code f2 = 1 - sqrt(f1)} where {@code x[1..n) = 0}.
+ */
+public class ParetoModel_1 implements MultiObjectiveModel {
+
+    private static final int DIMENSION = 10;
+
+    @Override
+    public int getObjectives() {
+        return 2;
+    }
+
+    @Override
+    public void evalObjectives(Location location, double[] out) {
+        double[] x = location.getLoc();
+        double sum = 0;
+        for (int i = 1; i < x.length; i++) {
+            sum += x[i];
+        }
+        double g = 1 + 9 * sum / (x.length - 1);
+        out[0] = x[0];
+        out[1] = g * (1 - Math.sqrt(x[0] / g));
+    }
+
+    @Override
+    public double[] getMinLoc() {
+        return new double[DIMENSION];
+    }
+
+    @Override
+    public double[] getMaxLoc() {
+        double[] maxLoc = new double[DIMENSION];
+        Arrays.fill(maxLoc, 1);
+        return maxLoc;
+    }
+
+    @Override
+    public double[] getMinVel() {
+        double[] minVel = new double[DIMENSION];
+        Arrays.fill(minVel, -0.2);
+        return minVel;
+    }
+
+    @Override
+    public double[] getMaxVel() {
+        double[] maxVel = new double[DIMENSION];
+        Arrays.fill(maxVel, 0.2);
+        return maxVel;
+    }
+
+    @Override
+    public int getDimentions() {
+        return DIMENSION;
+    }
+
+    @Override
+    public int getMaxIter() {
+        return 300;
+    }
+}